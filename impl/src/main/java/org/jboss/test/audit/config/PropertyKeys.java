@@ -50,6 +50,72 @@ public final class PropertyKeys {
 	 * A comma-separated list of TestNG test groups that are summarised at the end of the report
 	 */
 	public static final String SUMMARY_TEST_GROUPS = "summary_test_groups";
+	/**
+	 * If true, the audit file is parsed with a streaming StAX reader instead of building a DOM
+	 */
+	public static final String STREAMING_AUDIT_PARSER = "streaming_audit_parser";
+	/**
+	 * If true (the default), parsed audit files are cached in the output directory, keyed by a hash of their content
+	 */
+	public static final String AUDIT_MODEL_CACHE = "audit_model_cache";
+	/**
+	 * The maximum number of assertion images copied to the output directory concurrently, 4 by default
+	 */
+	public static final String IMAGE_COPY_THREADS = "image_copy_threads";
+	/**
+	 * The number of threads rendering the coverage detail sections of a report, 1 (serial rendering) by default
+	 */
+	public static final String REPORT_RENDERING_PARALLELISM = "report_rendering_parallelism";
+	/**
+	 * The layout of the report written to the output directory: "single" (the default) for a single page,
+	 * "chapters" for an index page with the summaries and one coverage detail page per chapter, or "data" for a
+	 * page which renders the coverage detail from a compact data script in the browser
+	 */
+	public static final String REPORT_LAYOUT = "report_layout";
+	/**
+	 * The compression of the report files written to the output directory: "none" (the default), "gzip" to also
+	 * write a gzip compressed .gz sibling of each file, or "gzip_only" to only write the compressed files
+	 */
+	public static final String REPORT_COMPRESSION = "report_compression";
+	/**
+	 * A comma separated list of the machine-readable exports written next to the report: "json" for the spec
+	 * metadata, the counters and the coverage of each assertion, "csv" or "tsv" for a table with one row per
+	 * assertion, or the format of any other CoverageRenderer on the class path. None by default
+	 */
+	public static final String EXPORT_FORMATS = "export_formats";
+	/**
+	 * If true, rendered report sections are cached in the output directory, keyed by a hash of their items and
+	 * coverage, and only changed sections are rendered again. False by default
+	 */
+	public static final String REPORT_FRAGMENT_CACHE = "report_fragment_cache";
+	/**
+	 * If true, a snapshot of the status and covering tests of each assertion is saved next to the report, to be
+	 * used as a baseline by later reports. False by default
+	 */
+	public static final String COVERAGE_SNAPSHOT = "coverage_snapshot";
+	/**
+	 * The directory of the snapshots saved by an earlier report, e.g. its output directory. If set, the diff page
+	 * of each spec lists the assertions whose coverage changed since its snapshot in the directory
+	 */
+	public static final String COVERAGE_BASELINE = "coverage_baseline";
+	/**
+	 * If true, the counters of each report are appended to a history file in the output directory, and the
+	 * chapter summary shows the coverage trend of each chapter. False by default
+	 */
+	public static final String COVERAGE_HISTORY = "coverage_history";
+	/**
+	 * The number of latest reports shown in the coverage trends, 20 by default
+	 */
+	public static final String COVERAGE_HISTORY_LENGTH = "coverage_history_length";
+	/**
+	 * If true, no report is rendered. The coverage is only checked against the thresholds: coverage below the
+	 * fail threshold fails the build, coverage below the pass threshold is a warning. False by default
+	 */
+	public static final String COVERAGE_GATE = "coverage_gate";
+	/**
+	 * If true, the coverage gate also checks the coverage of each chapter, not only the total. False by default
+	 */
+	public static final String COVERAGE_GATE_PER_CHAPTER = "coverage_gate_per_chapter";
 
 
 	private PropertyKeys() {
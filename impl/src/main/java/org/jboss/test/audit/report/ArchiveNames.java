@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The test archive names of the test classes of a report. The name of an
+ * archive is derived from the SHA-1 hash of the fully qualified name of the
+ * test class, and is computed once per class with a single reused digest.
+ *
+ * <p>
+ * The names are written to a manifest next to the report, as a properties
+ * file sorted by class name, so that deployment tooling can look them up.
+ * </p>
+ */
+class ArchiveNames
+{
+   private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+   private final Map<String, String> names = new TreeMap<String, String>();
+   private final MessageDigest digest;
+
+   ArchiveNames()
+   {
+      try
+      {
+         digest = MessageDigest.getInstance("SHA-1");
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * @param fqn the fully qualified name of the test class
+    * @return the archive name of the test class
+    */
+   synchronized String get(String fqn)
+   {
+      String name = names.get(fqn);
+      if (name == null)
+      {
+         name = hash(fqn);
+         names.put(fqn, name);
+      }
+      return name;
+   }
+
+   private String hash(String fqn)
+   {
+      byte[] hash = digest.digest(fqn.getBytes());
+
+      // Leading zeros of each byte are omitted, archive names in existing deployments depend on it
+      StringBuilder hexString = new StringBuilder(hash.length * 2);
+      for (int i = 0; i < hash.length; i++)
+      {
+         hexString.append(Integer.toHexString(0xFF & hash[i]));
+      }
+      return hexString.toString();
+   }
+
+   /**
+    * Write the archive names of all test classes looked up so far
+    *
+    * @param file
+    * @throws IOException
+    */
+   synchronized void writeManifest(File file) throws IOException
+   {
+      Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), ISO_8859_1));
+      try
+      {
+         out.write("# Test archive names by test class\n");
+         for (Map.Entry<String, String> entry : names.entrySet())
+         {
+            out.write(entry.getKey());
+            out.write('=');
+            out.write(entry.getValue());
+            out.write('\n');
+         }
+      }
+      finally
+      {
+         out.close();
+      }
+   }
+}
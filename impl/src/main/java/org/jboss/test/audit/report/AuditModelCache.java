@@ -0,0 +1,348 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binary cache of parsed audit models. Each model is stored in its own file,
+ * named after the hash of the audit file content, so that an unchanged audit
+ * file is never parsed twice.
+ *
+ * <p>
+ * The file starts with a magic number, the format version and the content
+ * hash, followed by the spec metadata and the sections with their items.
+ * Strings are stored as length prefixed UTF-8 bytes, with -1 for null.
+ * </p>
+ *
+ * <p>
+ * Entries which are not used while the audit files are loaded are removed by
+ * {@link #prune()}, so that the cache does not grow with each audit file change.
+ * </p>
+ */
+class AuditModelCache
+{
+   private static final int MAGIC = 0x54434b41;
+   private static final int FORMAT_VERSION = 1;
+
+   private static final byte ITEM_ASSERTION = 0;
+   private static final byte ITEM_GROUP = 1;
+
+   private static final String MODEL_PREFIX = "audit-";
+   private static final String MODEL_SUFFIX = ".model";
+
+   private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+   private final File cacheDir;
+
+   private final Set<String> used = new HashSet<String>();
+
+   public AuditModelCache(File cacheDir)
+   {
+      this.cacheDir = cacheDir;
+   }
+
+   /**
+    * @param content the audit file content
+    * @return the SHA-256 hash of the content
+    */
+   public static byte[] hash(byte[] content)
+   {
+      try
+      {
+         return MessageDigest.getInstance("SHA-256").digest(content);
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * @param hash hash of the audit file content
+    * @return the cached model, or null if there is no valid cache entry for the hash
+    */
+   public AuditParser load(byte[] hash)
+   {
+      File file = getFile(hash);
+      markUsed(file);
+      if (!file.isFile())
+      {
+         return null;
+      }
+
+      try
+      {
+         DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+         try
+         {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+            {
+               return null;
+            }
+            if (in.readInt() != hash.length)
+            {
+               return null;
+            }
+            byte[] storedHash = new byte[hash.length];
+            in.readFully(storedHash);
+            if (!Arrays.equals(hash, storedHash))
+            {
+               return null;
+            }
+            // No string can be longer than the entry, which bounds the lengths read from a corrupt one
+            return readModel(in, file.length());
+         }
+         finally
+         {
+            in.close();
+         }
+      }
+      catch (IOException e)
+      {
+         // Corrupt or truncated entry, the audit file is parsed again
+         return null;
+      }
+      catch (RuntimeException e)
+      {
+         // Corrupt entry describing an invalid model, the audit file is parsed again
+         return null;
+      }
+   }
+
+   /**
+    * Store the model. The entry is written to a temporary file first, so that
+    * concurrent builds never read a partially written entry.
+    *
+    * @param hash hash of the audit file content
+    * @param auditParser the parsed model
+    * @throws IOException
+    */
+   public void store(byte[] hash, AuditParser auditParser) throws IOException
+   {
+      cacheDir.mkdirs();
+      File file = getFile(hash);
+      markUsed(file);
+      File tmp = File.createTempFile(file.getName(), ".tmp", cacheDir);
+
+      try
+      {
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+         try
+         {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(hash.length);
+            out.write(hash);
+            writeModel(out, auditParser);
+         }
+         finally
+         {
+            out.close();
+         }
+
+         if (!tmp.renameTo(file))
+         {
+            file.delete();
+            if (!tmp.renameTo(file))
+            {
+               throw new IOException("Unable to write audit model cache " + file.getAbsolutePath());
+            }
+         }
+      }
+      finally
+      {
+         tmp.delete();
+      }
+   }
+
+   /**
+    * Remove the entries which were neither loaded nor stored since the cache was created
+    */
+   synchronized void prune()
+   {
+      File[] files = cacheDir.listFiles();
+      if (files == null)
+      {
+         return;
+      }
+      for (File file : files)
+      {
+         String name = file.getName();
+         if (name.startsWith(MODEL_PREFIX) && name.endsWith(MODEL_SUFFIX) && !used.contains(name))
+         {
+            file.delete();
+         }
+      }
+   }
+
+   private synchronized void markUsed(File file)
+   {
+      used.add(file.getName());
+   }
+
+   File getFile(byte[] hash)
+   {
+      StringBuilder name = new StringBuilder(MODEL_PREFIX);
+      for (byte b : hash)
+      {
+         name.append(Character.forDigit((b >> 4) & 0xF, 16));
+         name.append(Character.forDigit(b & 0xF, 16));
+      }
+      name.append(MODEL_SUFFIX);
+      return new File(cacheDir, name.toString());
+   }
+
+   private void writeModel(DataOutputStream out, AuditParser auditParser) throws IOException
+   {
+      writeString(out, auditParser.getName());
+      writeString(out, auditParser.getSpecId());
+      writeString(out, auditParser.getVersion());
+      out.writeBoolean(auditParser.hasSectionIdsGenerated());
+
+      List<String> sectionIds = auditParser.getSectionIds();
+      out.writeInt(sectionIds.size());
+      for (String sectionId : sectionIds)
+      {
+         writeString(out, sectionId);
+         writeString(out, auditParser.hasSectionIdsGenerated() ? auditParser.getSectionOriginalId(sectionId) : sectionId);
+         writeString(out, auditParser.getSectionTitle(sectionId));
+
+         List<SectionItem> items = auditParser.getItemsForSection(sectionId);
+         out.writeInt(items.size());
+         for (SectionItem item : items)
+         {
+            if (item instanceof AssertionGroup)
+            {
+               AssertionGroup group = (AssertionGroup) item;
+               out.writeByte(ITEM_GROUP);
+               writeString(out, group.getText());
+               out.writeInt(group.getAssertions().size());
+               for (AuditAssertion assertion : group.getAssertions())
+               {
+                  writeAssertion(out, assertion);
+               }
+            }
+            else
+            {
+               out.writeByte(ITEM_ASSERTION);
+               writeAssertion(out, (AuditAssertion) item);
+            }
+         }
+      }
+   }
+
+   private void writeAssertion(DataOutputStream out, AuditAssertion assertion) throws IOException
+   {
+      writeString(out, assertion.getId());
+      writeString(out, assertion.getText());
+      writeString(out, assertion.getNote());
+      out.writeBoolean(assertion.isTestable());
+      out.writeBoolean(assertion.isImplied());
+   }
+
+   private AuditParser readModel(DataInputStream in, long maxLength) throws IOException
+   {
+      AuditParser auditParser = new AuditParser(readString(in, maxLength), readString(in, maxLength),
+            readString(in, maxLength), in.readBoolean());
+
+      int sectionCount = in.readInt();
+      for (int i = 0; i < sectionCount; i++)
+      {
+         String sectionId = readString(in, maxLength);
+         auditParser.restoreSection(sectionId, readString(in, maxLength), readString(in, maxLength));
+
+         int itemCount = in.readInt();
+         for (int j = 0; j < itemCount; j++)
+         {
+            byte type = in.readByte();
+            if (type == ITEM_GROUP)
+            {
+               AssertionGroup group = new AssertionGroup(sectionId);
+               group.setText(readString(in, maxLength));
+               int assertionCount = in.readInt();
+               for (int k = 0; k < assertionCount; k++)
+               {
+                  readAssertion(in, maxLength, auditParser, sectionId, group);
+               }
+               auditParser.restoreGroup(group);
+            }
+            else if (type == ITEM_ASSERTION)
+            {
+               readAssertion(in, maxLength, auditParser, sectionId, null);
+            }
+            else
+            {
+               throw new IOException("Unknown section item type " + type);
+            }
+         }
+      }
+      auditParser.finishParsing();
+      return auditParser;
+   }
+
+   private void readAssertion(DataInputStream in, long maxLength, AuditParser auditParser, String sectionId,
+         AssertionGroup group) throws IOException
+   {
+      auditParser.addAssertion(sectionId, readString(in, maxLength), readString(in, maxLength),
+            readString(in, maxLength), in.readBoolean(), in.readBoolean(), group);
+   }
+
+   private static void writeString(DataOutputStream out, String value) throws IOException
+   {
+      if (value == null)
+      {
+         out.writeInt(-1);
+      }
+      else
+      {
+         byte[] bytes = value.getBytes(UTF_8);
+         out.writeInt(bytes.length);
+         out.write(bytes);
+      }
+   }
+
+   private static String readString(DataInputStream in, long maxLength) throws IOException
+   {
+      int length = in.readInt();
+      if (length == -1)
+      {
+         return null;
+      }
+      if (length < 0 || length > maxLength)
+      {
+         throw new IOException("Invalid string length " + length);
+      }
+      byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      return new String(bytes, UTF_8);
+   }
+}
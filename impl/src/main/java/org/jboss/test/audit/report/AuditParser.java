@@ -2,6 +2,7 @@ package org.jboss.test.audit.report;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -9,7 +10,12 @@ import java.util.Map;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
+import org.jboss.test.audit.config.PropertyKeys;
 import org.jboss.test.audit.config.RuntimeProperties;
 import org.jboss.test.audit.generate.SectionIdGenerator;
 import org.w3c.dom.Document;
@@ -36,13 +42,43 @@ public class AuditParser
 
    private Map<String,String> titles = new HashMap<String,String>();
    private Map<String,String> generatedToOriginalIdMap = new HashMap<String,String>();
-   private Map<String,String> originalToGeneratedIdMap = new HashMap<String,String>();
+
+   /*
+    * Assertions keyed by the original section id (as referenced by @SpecAssertion) and assertion id
+    */
+   private Map<String,Map<String,AuditAssertion>> assertionIndex = new HashMap<String,Map<String,AuditAssertion>>();
+
+   private SectionTree sectionTree;
+
+   /*
+    * Read-only views built once the model is complete
+    */
+   private Map<String,List<AuditAssertion>> assertionsForSection = new HashMap<String,List<AuditAssertion>>();
+   private Map<String,List<SectionItem>> itemsForSection = new HashMap<String,List<SectionItem>>();
 
    private InputStream source;
 
+   private boolean streaming;
+
    public AuditParser(InputStream source, RuntimeProperties properties)
    {
       this.source = source;
+      this.streaming = properties != null
+            && properties.getBooleanValue(PropertyKeys.STREAMING_AUDIT_PARSER, false, false);
+   }
+
+   /**
+    * Creates an empty model to be restored by {@link AuditModelCache}
+    */
+   AuditParser(String name, String specId, String version, boolean sectionIdsGenerated)
+   {
+      this.name = name;
+      this.specId = specId;
+      this.version = version;
+      if (sectionIdsGenerated)
+      {
+         this.sectionIdGenerator = new SectionIdGenerator();
+      }
    }
 
    public String getName()
@@ -70,51 +106,43 @@ public class AuditParser
       return sectionItems;
    }
 
+   /**
+    * @return an unmodifiable list of the section ids, sorted by {@link SectionIdComparator}
+    */
    public List<String> getSectionIds()
    {
-      List<String> sectionIds = new ArrayList<String>(sectionItems.keySet());
+      return sectionTree != null ? sectionTree.getSectionIds() : Collections.<String>emptyList();
+   }
 
-      Collections.sort(sectionIds, new SectionIdComparator());
-      return sectionIds;
+   /**
+    * @return the section hierarchy, or null if the audit file has not been parsed yet
+    */
+   public SectionTree getSectionTree()
+   {
+      return sectionTree;
    }
 
    /**
     *
     * @param sectionId - id of related section
-    * @return list of AuditAssertions
+    * @return read-only list of AuditAssertions, with the assertions of groups flattened
     */
    public List<AuditAssertion> getAssertionsForSection(String sectionId)
    {
-      List<AuditAssertion> assertions = new ArrayList<AuditAssertion>();
-
-      for (SectionItem item : sectionItems.get(sectionId))
-      {
-         if (item instanceof AuditAssertion)
-         {
-            assertions.add((AuditAssertion) item);
-         }
-         else if (item instanceof AssertionGroup)
-         {
-            for (AuditAssertion assertion : ((AssertionGroup) item).getAssertions())
-            {
-               assertions.add(assertion);
-            }
-         }
-      }
-
-      return assertions;
+      List<AuditAssertion> assertions = assertionsForSection.get(sectionId);
+      return assertions != null ? assertions : Collections.<AuditAssertion>emptyList();
    }
 
    /**
     * Returns a list of items for the specified section ID
     *
     * @param sectionId - id of related section
-    * @return list of Section items
+    * @return read-only list of Section items
     */
    public List<SectionItem> getItemsForSection(String sectionId)
    {
-      List<SectionItem> items = new ArrayList<SectionItem>(sectionItems.get(sectionId));
-      return items;
+      List<SectionItem> items = itemsForSection.get(sectionId);
+      return items != null ? items : Collections.<SectionItem>emptyList();
    }
 
    /**
@@ -125,32 +153,21 @@ public class AuditParser
     */
    public boolean hasAssertion(String sectionId, String assertionId)
    {
-      if(sectionIdGenerator != null) {
-    	  // Note that sectionId has the original value
-    	  sectionId = originalToGeneratedIdMap.get(sectionId);
-      }
-
-	  if (!sectionItems.containsKey(sectionId))
-      {
-         return false;
-      }
-
-      for (SectionItem item : sectionItems.get(sectionId))
-      {
-         if (item instanceof AuditAssertion && ((AuditAssertion) item).getId().equals(assertionId))
-         {
-            return true;
-         }
-         else if (item instanceof AssertionGroup)
-         {
-            for (AuditAssertion assertion : ((AssertionGroup) item).getAssertions())
-            {
-               if (assertion.getId().equals(assertionId)) return true;
-            }
-         }
-      }
+      return getAssertion(sectionId, assertionId) != null;
+   }
 
-      return false;
+   /**
+    * Look up an assertion in constant time. The assertions are indexed by the
+    * original section id, so no translation to a generated id is needed.
+    *
+    * @param sectionId - original id of related section, as referenced by the tests
+    * @param assertionId - assertion id
+    * @return the assertion, or null if the section does not define such an assertion
+    */
+   public AuditAssertion getAssertion(String sectionId, String assertionId)
+   {
+      Map<String,AuditAssertion> assertions = assertionIndex.get(sectionId);
+      return assertions != null ? assertions.get(assertionId) : null;
    }
 
    /**
@@ -159,6 +176,11 @@ public class AuditParser
     */
    public AuditParser parse() throws Exception
    {
+      if (streaming)
+      {
+         return parseStreaming();
+      }
+
       DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
 
       Document doc = builder.parse(source);
@@ -180,6 +202,53 @@ public class AuditParser
             processSectionNode((Element) sectionNodes.item(i));
          }
       }
+      finishParsing();
+      return this;
+   }
+
+   /**
+    * Load the spec assertions defined in tck-audit.xml in a single forward pass
+    * over a {@link XMLStreamReader}, without building a DOM. The resulting model
+    * is identical to the one built by {@link #parse()}.
+    *
+    * @return AuditParser
+    */
+   public AuditParser parseStreaming() throws Exception
+   {
+      XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(source);
+      try
+      {
+         while (reader.next() != XMLStreamConstants.START_ELEMENT)
+         {
+            // Skip the prolog
+         }
+
+         name = getAttribute(reader, "name");
+         specId = getAttribute(reader, "id");
+         version = getAttribute(reader, "version");
+
+         if (Boolean.parseBoolean(getAttribute(reader, "generateSectionIds")))
+         {
+            sectionIdGenerator = new SectionIdGenerator();
+         }
+
+         while (nextChildElement(reader))
+         {
+            if ("section".equals(reader.getLocalName()))
+            {
+               processSectionElement(reader);
+            }
+            else
+            {
+               skipElement(reader);
+            }
+         }
+      }
+      finally
+      {
+         reader.close();
+      }
+      finishParsing();
       return this;
    }
 
@@ -193,20 +262,7 @@ public class AuditParser
 
    private void processSectionNode(Element node)
    {
-	  String id = node.getAttribute("id");
-	  String level = node.getAttribute("level");
-	  if(hasSectionIdsGenerated() && level.isEmpty()) {
-		  throw new IllegalStateException("Section id generation is enabled and node is missing a level info");
-	  }
-
-      String sectionId = (sectionIdGenerator != null ? sectionIdGenerator.nextId(Integer.valueOf(level)) : id);
-
-      titles.put(sectionId, node.getAttribute("title"));
-      sectionItems.put(sectionId, new ArrayList<SectionItem>());
-      if(sectionIdGenerator != null) {
-    	  generatedToOriginalIdMap.put(sectionId, id);
-    	  originalToGeneratedIdMap.put(id, sectionId);
-      }
+      String sectionId = addSection(node.getAttribute("id"), node.getAttribute("level"), node.getAttribute("title"));
 
       NodeList assertionNodes = node.getChildNodes();
 
@@ -277,8 +333,156 @@ public class AuditParser
       boolean implied = node.hasAttribute("implied") ?
             Boolean.parseBoolean(node.getAttribute("implied")) : false;
 
+      addAssertion(sectionId, node.getAttribute("id"), text, note, testable, implied, group);
+   }
+
+   private void processSectionElement(XMLStreamReader reader) throws XMLStreamException
+   {
+      String sectionId = addSection(getAttribute(reader, "id"), getAttribute(reader, "level"),
+            getAttribute(reader, "title"));
+
+      while (nextChildElement(reader))
+      {
+         if ("assertion".equals(reader.getLocalName()))
+         {
+            processAssertionElement(reader, sectionId, null);
+         }
+         else if ("group".equals(reader.getLocalName()))
+         {
+            processGroupElement(reader, sectionId);
+         }
+         else
+         {
+            skipElement(reader);
+         }
+      }
+   }
+
+   private void processGroupElement(XMLStreamReader reader, String sectionId) throws XMLStreamException
+   {
+      AssertionGroup group = new AssertionGroup(sectionId);
+
+      while (nextChildElement(reader))
+      {
+         if ("assertion".equals(reader.getLocalName()))
+         {
+            processAssertionElement(reader, sectionId, group);
+         }
+         else if ("text".equals(reader.getLocalName()))
+         {
+            group.setText(readElementText(reader));
+         }
+         else
+         {
+            skipElement(reader);
+         }
+      }
+
+      List<SectionItem> items = sectionItems.get(sectionId);
+      items.add(group);
+   }
+
+   private void processAssertionElement(XMLStreamReader reader, String sectionId, AssertionGroup group)
+         throws XMLStreamException
+   {
+      // Attributes are only available while the reader is positioned on the start element
+      String id = getAttribute(reader, "id");
+      String testableValue = reader.getAttributeValue(null, "testable");
+      String impliedValue = reader.getAttributeValue(null, "implied");
+
+      String text = null;
+      String note = null;
+
+      while (nextChildElement(reader))
+      {
+         if ("text".equals(reader.getLocalName()))
+         {
+            text = readElementText(reader);
+         }
+         else if ("note".equals(reader.getLocalName()))
+         {
+            note = readElementText(reader);
+         }
+         else
+         {
+            skipElement(reader);
+         }
+      }
+
+      boolean testable = testableValue != null ? Boolean.parseBoolean(testableValue) : true;
+      boolean implied = impliedValue != null ? Boolean.parseBoolean(impliedValue) : false;
+
+      addAssertion(sectionId, id, text, note, testable, implied, group);
+   }
+
+   private String addSection(String id, String level, String title)
+   {
+	  if(hasSectionIdsGenerated() && level.isEmpty()) {
+		  throw new IllegalStateException("Section id generation is enabled and node is missing a level info");
+	  }
+
+      String sectionId = (sectionIdGenerator != null ? sectionIdGenerator.nextId(Integer.valueOf(level)) : id);
+
+      restoreSection(sectionId, id, title);
+      return sectionId;
+   }
+
+   void restoreSection(String sectionId, String originalId, String title)
+   {
+      titles.put(sectionId, title);
+      sectionItems.put(sectionId, new ArrayList<SectionItem>());
+      if(sectionIdGenerator != null) {
+    	  generatedToOriginalIdMap.put(sectionId, originalId);
+      }
+      assertionIndex.put(originalId, new HashMap<String,AuditAssertion>());
+   }
+
+   void restoreGroup(AssertionGroup group)
+   {
+      sectionItems.get(group.getSection()).add(group);
+   }
+
+   /**
+    * Build the state derived from the complete model
+    */
+   void finishParsing()
+   {
+      sectionTree = new SectionTree(sectionItems.keySet());
+
+      for (Map.Entry<String,List<SectionItem>> entry : sectionItems.entrySet())
+      {
+         List<AuditAssertion> assertions = new ArrayList<AuditAssertion>();
+         for (SectionItem item : entry.getValue())
+         {
+            if (item instanceof AuditAssertion)
+            {
+               assertions.add((AuditAssertion) item);
+            }
+            else if (item instanceof AssertionGroup)
+            {
+               assertions.addAll(((AssertionGroup) item).getAssertions());
+            }
+         }
+
+         AuditAssertion[] flattened = assertions.toArray(new AuditAssertion[assertions.size()]);
+         assertionsForSection.put(entry.getKey(), Collections.unmodifiableList(Arrays.asList(flattened)));
+         itemsForSection.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+      }
+   }
+
+   void addAssertion(String sectionId, String id, String text, String note,
+         boolean testable, boolean implied, AssertionGroup group)
+   {
       AuditAssertion assertion = new AuditAssertion(sectionId,
-            node.getAttribute("id"), text, note, testable, implied, group);
+            id, text, note, testable, implied, group);
+
+      // The first assertion with a given id wins
+      Map<String,AuditAssertion> index = assertionIndex.get(sectionIdGenerator != null
+            ? generatedToOriginalIdMap.get(sectionId) : sectionId);
+      if (!index.containsKey(id))
+      {
+         index.put(id, assertion);
+      }
 
       if (assertion.getGroup() != null)
       {
@@ -290,4 +494,83 @@ public class AuditParser
          items.add(assertion);
       }
    }
+
+   /**
+    * Same semantics as {@link Element#getAttribute(String)}, i.e. an empty string for a missing attribute.
+    */
+   private static String getAttribute(XMLStreamReader reader, String name)
+   {
+      String value = reader.getAttributeValue(null, name);
+      return value != null ? value : "";
+   }
+
+   /**
+    * Advance to the next child element of the current element.
+    *
+    * @return true if positioned on a child start element, false if the end of the current element was reached
+    */
+   private static boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException
+   {
+      while (reader.hasNext())
+      {
+         int event = reader.next();
+         if (event == XMLStreamConstants.START_ELEMENT)
+         {
+            return true;
+         }
+         else if (event == XMLStreamConstants.END_ELEMENT)
+         {
+            return false;
+         }
+      }
+      return false;
+   }
+
+   private static void skipElement(XMLStreamReader reader) throws XMLStreamException
+   {
+      int depth = 1;
+      while (depth > 0)
+      {
+         int event = reader.next();
+         if (event == XMLStreamConstants.START_ELEMENT)
+         {
+            depth++;
+         }
+         else if (event == XMLStreamConstants.END_ELEMENT)
+         {
+            depth--;
+         }
+      }
+   }
+
+   /**
+    * Same semantics as {@link Node#getTextContent()}, i.e. the text of all descendants is concatenated.
+    */
+   private static String readElementText(XMLStreamReader reader) throws XMLStreamException
+   {
+      StringBuilder text = new StringBuilder();
+      int depth = 1;
+      while (depth > 0)
+      {
+         int event = reader.next();
+         switch (event)
+         {
+            case XMLStreamConstants.START_ELEMENT:
+               depth++;
+               break;
+            case XMLStreamConstants.END_ELEMENT:
+               depth--;
+               break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+            case XMLStreamConstants.ENTITY_REFERENCE:
+               text.append(reader.getText());
+               break;
+            default:
+               break;
+         }
+      }
+      return text.toString();
+   }
 }
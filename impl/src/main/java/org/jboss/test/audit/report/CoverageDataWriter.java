@@ -0,0 +1,193 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.test.audit.config.Strings;
+
+/**
+ * Writes the coverage detail of a data-driven report as a script, which
+ * passes the coverage model as compact JSON to the renderer of the report
+ * page (<code>coverage-report.js</code>).
+ *
+ * <p>
+ * Only sections with items are written, in report order. Assertion texts are
+ * written with their markup, which is rendered by the client. Test classes
+ * are written once and referenced by their index.
+ * </p>
+ */
+class CoverageDataWriter
+{
+   private final AuditParser auditParser;
+   private final CoverageStatistics statistics;
+   private final ArchiveNames archiveNames;
+   private final ImageCopier imageCopier;
+   private final Map<String, String> links;
+
+   private final Map<String, Integer> classIndex = new HashMap<String, Integer>();
+   private final List<SpecReference> classes = new ArrayList<SpecReference>();
+
+   /**
+    * @param links the base urls of the links to the specification and the test classes, keyed by the link name
+    */
+   CoverageDataWriter(AuditParser auditParser, CoverageStatistics statistics, ArchiveNames archiveNames,
+         ImageCopier imageCopier, Map<String, String> links)
+   {
+      this.auditParser = auditParser;
+      this.statistics = statistics;
+      this.archiveNames = archiveNames;
+      this.imageCopier = imageCopier;
+      this.links = links;
+   }
+
+   void write(Writer out) throws IOException
+   {
+      out.write("renderCoverage(");
+      JsonWriter json = new JsonWriter(out);
+      json.beginObject();
+
+      json.name("links").beginObject();
+      for (Map.Entry<String, String> link : links.entrySet())
+      {
+         if (link.getValue() != null)
+         {
+            json.name(link.getKey()).value(link.getValue());
+         }
+      }
+      json.endObject();
+
+      json.name("sections").beginArray();
+      for (String sectionId : auditParser.getSectionIds())
+      {
+         List<SectionItem> items = auditParser.getItemsForSection(sectionId);
+         if (items.isEmpty())
+         {
+            continue;
+         }
+         json.beginObject();
+         json.name("id").value(sectionId);
+         json.name("title").value(auditParser.getSectionTitle(sectionId));
+         if (auditParser.hasSectionIdsGenerated())
+         {
+            json.name("original").value(auditParser.getSectionOriginalId(sectionId));
+         }
+         json.name("items").beginArray();
+         for (SectionItem item : items)
+         {
+            if (item instanceof AssertionGroup)
+            {
+               AssertionGroup group = (AssertionGroup) item;
+               json.beginObject();
+               json.name("g").value(group.getText());
+               json.name("a").beginArray();
+               for (AuditAssertion assertion : group.getAssertions())
+               {
+                  writeAssertion(json, assertion);
+               }
+               json.endArray();
+               json.endObject();
+            }
+            else if (item instanceof AuditAssertion)
+            {
+               writeAssertion(json, (AuditAssertion) item);
+            }
+         }
+         json.endArray();
+         json.endObject();
+      }
+      json.endArray();
+
+      json.name("classes").beginArray();
+      for (SpecReference ref : classes)
+      {
+         json.beginArray();
+         json.value(ref.getPackageName());
+         json.value(ref.getClassName());
+         json.value(archiveNames.get(ref.getPackageName() + "." + ref.getClassName()));
+         json.endArray();
+      }
+      json.endArray();
+
+      json.endObject();
+      out.write(");\n");
+   }
+
+   private void writeAssertion(JsonWriter json, AuditAssertion assertion) throws IOException
+   {
+      CoverageStatistics.AssertionCoverage coverage = statistics.getCoverage(assertion);
+
+      json.beginObject();
+      json.name("id").value(assertion.getId());
+      json.name("s").value(CoverageReport.getStatusClass(assertion, coverage.getStatus()));
+      json.name("t").value(assertion.getText());
+      if (!Strings.isEmpty(assertion.getNote()))
+      {
+         json.name("n").value(assertion.getNote());
+      }
+      if (assertion.isImplied())
+      {
+         json.name("implied").value(true);
+      }
+
+      String imageFilename = assertion.getSection() + "." + assertion.getId() + ".png";
+      if (imageCopier.exists(imageFilename))
+      {
+         json.name("img").value(imageFilename);
+         imageCopier.copy(imageFilename);
+      }
+
+      if (!assertion.isTestable())
+      {
+         if (!coverage.getReferences().isEmpty())
+         {
+            json.name("tested").value(true);
+         }
+      }
+      else if (!coverage.getReferences().isEmpty())
+      {
+         json.name("r").beginArray();
+         for (SpecReference ref : coverage.getReferences())
+         {
+            json.beginArray();
+            json.value(getClassIndex(ref));
+            json.value(ref.getMethodName());
+            json.endArray();
+         }
+         json.endArray();
+      }
+      json.endObject();
+   }
+
+   private int getClassIndex(SpecReference ref)
+   {
+      String fqn = ref.getPackageName() + "." + ref.getClassName();
+      Integer index = classIndex.get(fqn);
+      if (index == null)
+      {
+         index = classes.size();
+         classIndex.put(fqn, index);
+         classes.add(ref);
+      }
+      return index;
+   }
+}
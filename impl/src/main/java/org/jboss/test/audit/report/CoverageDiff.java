@@ -0,0 +1,186 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.test.audit.report.CoverageReport.TestStatus;
+
+/**
+ * The changes in coverage between a baseline snapshot and the current one.
+ * The snapshots are joined on the assertion keys, each entry is looked up
+ * once, so the diff is linear in the number of assertions.
+ */
+class CoverageDiff
+{
+   /**
+    * The change of one assertion. The baseline is null for a new assertion,
+    * the current entry is null for a removed one.
+    */
+   static class Change
+   {
+      private final CoverageSnapshot.Entry baseline;
+      private final CoverageSnapshot.Entry current;
+      private final List<String> gainedTests;
+      private final List<String> lostTests;
+
+      Change(CoverageSnapshot.Entry baseline, CoverageSnapshot.Entry current, List<String> gainedTests,
+            List<String> lostTests)
+      {
+         this.baseline = baseline;
+         this.current = current;
+         this.gainedTests = gainedTests;
+         this.lostTests = lostTests;
+      }
+
+      CoverageSnapshot.Entry getBaseline()
+      {
+         return baseline;
+      }
+
+      CoverageSnapshot.Entry getCurrent()
+      {
+         return current;
+      }
+
+      List<String> getGainedTests()
+      {
+         return gainedTests;
+      }
+
+      List<String> getLostTests()
+      {
+         return lostTests;
+      }
+   }
+
+   private final List<Change> becameCovered = new ArrayList<Change>();
+   private final List<Change> becameUncovered = new ArrayList<Change>();
+   private final List<Change> becameUnimplemented = new ArrayList<Change>();
+   private final List<Change> testsChanged = new ArrayList<Change>();
+   private final List<Change> removed = new ArrayList<Change>();
+
+   CoverageDiff(CoverageSnapshot baseline, CoverageSnapshot current)
+   {
+      for (CoverageSnapshot.Entry entry : current.getEntries())
+      {
+         CoverageSnapshot.Entry previous = baseline.get(entry.getKey());
+         List<String> gained = difference(entry.getTests(), previous == null ? null : previous.getTests());
+         List<String> lost = difference(previous == null ? null : previous.getTests(), entry.getTests());
+         Change change = new Change(previous, entry, gained, lost);
+
+         // The status of untestable assertions is not reported
+         TestStatus previousStatus = previous == null || !previous.isTestable() ? null : previous.getStatus();
+         if (entry.isTestable() && entry.getStatus() != previousStatus)
+         {
+            switch (entry.getStatus())
+            {
+               case COVERED:
+                  becameCovered.add(change);
+                  break;
+               case UNCOVERED:
+                  becameUncovered.add(change);
+                  break;
+               case UNIMPLEMENTED:
+                  becameUnimplemented.add(change);
+                  break;
+            }
+         }
+         else if (!gained.isEmpty() || !lost.isEmpty())
+         {
+            testsChanged.add(change);
+         }
+      }
+
+      for (CoverageSnapshot.Entry entry : baseline.getEntries())
+      {
+         if (current.get(entry.getKey()) == null)
+         {
+            removed.add(new Change(entry, null, Collections.<String> emptyList(), entry.getTests()));
+         }
+      }
+   }
+
+   /**
+    * @return the tests in the first list which are not in the second one
+    */
+   private static List<String> difference(List<String> tests, List<String> others)
+   {
+      if (tests == null || tests.isEmpty())
+      {
+         return Collections.emptyList();
+      }
+      if (others == null || others.isEmpty())
+      {
+         return tests;
+      }
+      Set<String> otherSet = new HashSet<String>(others);
+      List<String> difference = new ArrayList<String>();
+      for (String test : tests)
+      {
+         if (!otherSet.contains(test))
+         {
+            difference.add(test);
+         }
+      }
+      return difference;
+   }
+
+   /**
+    * @return the testable assertions which are covered now, but were not or did not exist in the baseline
+    */
+   List<Change> getBecameCovered()
+   {
+      return becameCovered;
+   }
+
+   List<Change> getBecameUncovered()
+   {
+      return becameUncovered;
+   }
+
+   List<Change> getBecameUnimplemented()
+   {
+      return becameUnimplemented;
+   }
+
+   /**
+    * @return the assertions with an unchanged status, which gained or lost tests
+    */
+   List<Change> getTestsChanged()
+   {
+      return testsChanged;
+   }
+
+   /**
+    * @return the assertions of the baseline which no longer exist
+    */
+   List<Change> getRemoved()
+   {
+      return removed;
+   }
+
+   boolean isEmpty()
+   {
+      return becameCovered.isEmpty() && becameUncovered.isEmpty() && becameUnimplemented.isEmpty()
+            && testsChanged.isEmpty() && removed.isEmpty();
+   }
+}
@@ -0,0 +1,150 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Checks the coverage of a spec against the thresholds, without rendering a
+ * report. Coverage below the fail threshold fails the gate, coverage below
+ * the pass threshold only warns. The total coverage is always checked, the
+ * coverage of each chapter optionally.
+ */
+class CoverageGate
+{
+   static final String STATUS_PASS = "pass";
+   static final String STATUS_WARN = "warn";
+   static final String STATUS_FAIL = "fail";
+
+   private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+   private final AuditParser auditParser;
+   private final CoverageStatistics statistics;
+   private final int failThreshold;
+   private final int passThreshold;
+   private final boolean perChapter;
+
+   private final List<String> failures = new ArrayList<String>();
+   private final List<String> warnings = new ArrayList<String>();
+
+   CoverageGate(AuditParser auditParser, CoverageStatistics statistics, int failThreshold, int passThreshold,
+         boolean perChapter)
+   {
+      this.auditParser = auditParser;
+      this.statistics = statistics;
+      this.failThreshold = failThreshold;
+      this.passThreshold = passThreshold;
+      this.perChapter = perChapter;
+
+      check("Total", statistics.getTotalCounters());
+      if (perChapter)
+      {
+         for (String chapterId : statistics.getChapterIds())
+         {
+            check("Chapter " + chapterId + " " + auditParser.getSectionTitle(chapterId),
+                  statistics.getChapterCounters(chapterId));
+         }
+      }
+   }
+
+   private void check(String name, CoverageStatistics.Counters counters)
+   {
+      double coverage = counters.getCoveragePercent();
+      // Nothing to cover
+      if (coverage < 0)
+      {
+         return;
+      }
+      if (coverage < failThreshold)
+      {
+         failures.add(String.format(Locale.ENGLISH, "%s coverage %.2f%% is below the fail threshold of %d%%", name,
+               coverage, failThreshold));
+      }
+      else if (coverage < passThreshold)
+      {
+         warnings.add(String.format(Locale.ENGLISH, "%s coverage %.2f%% is below the pass threshold of %d%%", name,
+               coverage, passThreshold));
+      }
+   }
+
+   /**
+    * @return {@link #STATUS_FAIL} if any coverage is below the fail threshold, {@link #STATUS_WARN} if any is
+    *         below the pass threshold, {@link #STATUS_PASS} otherwise
+    */
+   String getStatus()
+   {
+      return !failures.isEmpty() ? STATUS_FAIL : !warnings.isEmpty() ? STATUS_WARN : STATUS_PASS;
+   }
+
+   List<String> getFailures()
+   {
+      return Collections.unmodifiableList(failures);
+   }
+
+   List<String> getWarnings()
+   {
+      return Collections.unmodifiableList(warnings);
+   }
+
+   /**
+    * Write the result as a properties file: the status, the thresholds, and the checked coverage percentages
+    */
+   void write(File file) throws IOException
+   {
+      Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), ISO_8859_1));
+      try
+      {
+         out.write("# Coverage gate result\n");
+         out.write("spec=" + auditParser.getSpecId() + "\n");
+         out.write("status=" + getStatus() + "\n");
+         out.write("fail_threshold=" + failThreshold + "\n");
+         out.write("pass_threshold=" + passThreshold + "\n");
+         writeCoverage(out, "coverage", statistics.getTotalCounters());
+         if (perChapter)
+         {
+            for (String chapterId : statistics.getChapterIds())
+            {
+               writeCoverage(out, "coverage." + chapterId, statistics.getChapterCounters(chapterId));
+            }
+         }
+      }
+      finally
+      {
+         out.close();
+      }
+   }
+
+   private static void writeCoverage(Writer out, String key, CoverageStatistics.Counters counters)
+         throws IOException
+   {
+      double coverage = counters.getCoveragePercent();
+      out.write(key.replace(" ", "\\ ").replace("=", "\\=").replace(":", "\\:"));
+      out.write('=');
+      out.write(coverage < 0 ? "" : String.format(Locale.ENGLISH, "%.2f", coverage));
+      out.write('\n');
+   }
+}
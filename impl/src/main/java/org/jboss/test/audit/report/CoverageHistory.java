@@ -0,0 +1,524 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only file with the counters of the reports of a spec, one record per
+ * report.
+ *
+ * <p>
+ * Each record is its payload, followed by the payload length and a magic
+ * number, so that the latest records are found by walking back from the end
+ * of the file, without reading the older ones. The payload holds the time of
+ * the report, the spec version and the total, chapter and section counters.
+ * Strings are stored as length prefixed UTF-8 bytes.
+ * </p>
+ *
+ * <p>
+ * A damaged history never blocks a report: a partial record at the end, e.g.
+ * of a build killed while appending, is truncated, and the records before a
+ * corrupt one are dropped, so that the latest valid records are kept.
+ * </p>
+ */
+class CoverageHistory
+{
+   private static final int MAGIC = 0x54434b48;
+   private static final int TRAILER_SIZE = 8;
+
+   private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+   /**
+    * The counters of one report
+    */
+   static class Record
+   {
+      private final long timestamp;
+      private final String version;
+      private final CoverageStatistics.Counters total;
+      private final Map<String, CoverageStatistics.Counters> chapters;
+      private final Map<String, CoverageStatistics.Counters> sections;
+
+      Record(long timestamp, String version, CoverageStatistics.Counters total,
+            Map<String, CoverageStatistics.Counters> chapters, Map<String, CoverageStatistics.Counters> sections)
+      {
+         this.timestamp = timestamp;
+         this.version = version;
+         this.total = total;
+         this.chapters = chapters;
+         this.sections = sections;
+      }
+
+      /**
+       * @return the record of the counters in the statistics
+       */
+      static Record of(long timestamp, AuditParser auditParser, CoverageStatistics statistics)
+      {
+         Map<String, CoverageStatistics.Counters> chapters = new LinkedHashMap<String, CoverageStatistics.Counters>();
+         for (String chapterId : statistics.getChapterIds())
+         {
+            chapters.put(chapterId, statistics.getChapterCounters(chapterId));
+         }
+         Map<String, CoverageStatistics.Counters> sections = new LinkedHashMap<String, CoverageStatistics.Counters>();
+         for (String sectionId : auditParser.getSectionIds())
+         {
+            sections.put(sectionId, statistics.getSectionCounters(sectionId));
+         }
+         return new Record(timestamp, auditParser.getVersion(), statistics.getTotalCounters(), chapters, sections);
+      }
+
+      long getTimestamp()
+      {
+         return timestamp;
+      }
+
+      String getVersion()
+      {
+         return version;
+      }
+
+      CoverageStatistics.Counters getTotal()
+      {
+         return total;
+      }
+
+      /**
+       * @return the counters of the chapter, or null if it did not exist
+       */
+      CoverageStatistics.Counters getChapter(String chapterId)
+      {
+         return chapters.get(chapterId);
+      }
+
+      /**
+       * @return the counters of the assertions defined directly in the section, or null if it did not exist
+       */
+      CoverageStatistics.Counters getSection(String sectionId)
+      {
+         return sections.get(sectionId);
+      }
+   }
+
+   private final File file;
+   private final String specId;
+
+   /**
+    * @param specId the spec of the reports, which prefixes the log lines
+    */
+   CoverageHistory(File file, String specId)
+   {
+      this.file = file;
+      this.specId = specId;
+   }
+
+   /**
+    * Append the record with a single write. If the file does not end with a
+    * complete record, e.g. because an earlier build was killed while writing,
+    * it is first truncated to the last complete record.
+    */
+   void append(Record record) throws IOException
+   {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      writeRecord(out, record);
+      out.writeInt(out.size());
+      out.writeInt(MAGIC);
+      out.close();
+
+      if (file.isFile() && !endsWithRecord())
+      {
+         // Reading the last record repairs the end of the history
+         readLast(1);
+         if (!endsWithRecord())
+         {
+            throw new IOException("Unable to repair corrupt coverage history " + file.getAbsolutePath());
+         }
+      }
+
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+      try
+      {
+         ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+         while (buffer.hasRemaining())
+         {
+            channel.write(buffer);
+         }
+      }
+      finally
+      {
+         channel.close();
+      }
+   }
+
+   /**
+    * @return the latest records, at most count, oldest first. A partial record
+    *         at the end of the history is truncated, and if a corrupt record is
+    *         found, it is dropped with the records before it.
+    * @throws IOException if the file can not be read
+    */
+   List<Record> readLast(int count) throws IOException
+   {
+      if (!file.isFile() || count <= 0)
+      {
+         return Collections.emptyList();
+      }
+
+      MappedByteBuffer buffer;
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      try
+      {
+         buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      finally
+      {
+         channel.close();
+      }
+
+      List<Record> records = new ArrayList<Record>();
+      int size = buffer.limit();
+      int tail;
+      int end;
+      try
+      {
+         tail = findTail(buffer);
+         end = tail;
+         while (end > 0 && records.size() < count)
+         {
+            int start = readRecordBefore(buffer, end, records);
+            if (start < 0)
+            {
+               break;
+            }
+            end = start;
+         }
+      }
+      finally
+      {
+         // A mapped file can neither be truncated nor replaced on Windows
+         unmap(buffer);
+      }
+      boolean corruptHead = end > 0 && records.size() < count;
+      if (tail < size || corruptHead)
+      {
+         repair(corruptHead ? end : 0, tail);
+      }
+      Collections.reverse(records);
+      return records;
+   }
+
+   /**
+    * @return the end of the last complete record, or 0 if there is none
+    */
+   private static int findTail(ByteBuffer buffer)
+   {
+      List<Record> records = new ArrayList<Record>(1);
+      for (int end = buffer.limit(); end >= TRAILER_SIZE; end--)
+      {
+         if (readRecordBefore(buffer, end, records) >= 0)
+         {
+            return end;
+         }
+      }
+      return 0;
+   }
+
+   /**
+    * Decode the record ending at end and add it to the records
+    *
+    * @return the start of the record, or -1 if it is corrupt
+    */
+   private static int readRecordBefore(ByteBuffer buffer, int end, List<Record> records)
+   {
+      int start = end - TRAILER_SIZE;
+      if (start < 0 || buffer.getInt(end - 4) != MAGIC)
+      {
+         return -1;
+      }
+      int length = buffer.getInt(start);
+      start -= length;
+      if (length < 0 || start < 0)
+      {
+         return -1;
+      }
+      ByteBuffer payload = buffer.duplicate();
+      payload.limit(start + length).position(start);
+      try
+      {
+         Record record = readRecord(payload);
+         if (payload.hasRemaining())
+         {
+            return -1;
+         }
+         records.add(record);
+      }
+      catch (BufferUnderflowException e)
+      {
+         return -1;
+      }
+      return start;
+   }
+
+   /**
+    * Keep the records between start and tail only. The file is truncated if
+    * only a partial record follows them, and replaced with a copy of them if
+    * corrupt records precede them.
+    */
+   private void repair(int start, int tail)
+   {
+      try
+      {
+         if (start == 0)
+         {
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+            try
+            {
+               channel.truncate(tail);
+            }
+            finally
+            {
+               channel.close();
+            }
+         }
+         else
+         {
+            copyAndReplace(start, tail);
+         }
+         System.err.println("[" + specId + "] Dropped the corrupt records of coverage history "
+               + file.getAbsolutePath());
+      }
+      catch (IOException e)
+      {
+         System.err.println("[" + specId + "] Unable to repair corrupt coverage history - " + e.getMessage());
+      }
+   }
+
+   private void copyAndReplace(int start, int tail) throws IOException
+   {
+      File tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+      try
+      {
+         FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+         try
+         {
+            FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE);
+            try
+            {
+               long position = start;
+               while (position < tail)
+               {
+                  long transferred = in.transferTo(position, tail - position, out);
+                  if (transferred <= 0)
+                  {
+                     throw new IOException("Unexpected end of coverage history " + file.getAbsolutePath());
+                  }
+                  position += transferred;
+               }
+            }
+            finally
+            {
+               out.close();
+            }
+         }
+         finally
+         {
+            in.close();
+         }
+         Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      finally
+      {
+         tmp.delete();
+      }
+   }
+
+   /**
+    * Release the mapping now rather than when the buffer is garbage collected.
+    * There is no API for it, so the cleaner of the JDK is called reflectively;
+    * where it is not available, the mapping is left to the garbage collector.
+    * The buffer must not be used afterwards.
+    */
+   private static void unmap(MappedByteBuffer buffer)
+   {
+      try
+      {
+         Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+         try
+         {
+            // Java 9 and later
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+         }
+         catch (NoSuchMethodException e)
+         {
+            // Java 8
+            Object cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner").invoke(buffer);
+            if (cleaner != null)
+            {
+               cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+         }
+      }
+      catch (Exception e)
+      {
+         // Left to the garbage collector, a repair may then fail on Windows
+      }
+   }
+
+   private boolean endsWithRecord() throws IOException
+   {
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      try
+      {
+         long size = channel.size();
+         if (size == 0)
+         {
+            return true;
+         }
+         if (size < TRAILER_SIZE)
+         {
+            return false;
+         }
+         ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+         while (trailer.hasRemaining())
+         {
+            if (channel.read(trailer, size - TRAILER_SIZE + trailer.position()) < 0)
+            {
+               return false;
+            }
+         }
+         int length = trailer.getInt(0);
+         return trailer.getInt(4) == MAGIC && length >= 0 && length <= size - TRAILER_SIZE;
+      }
+      finally
+      {
+         channel.close();
+      }
+   }
+
+   private static void writeRecord(DataOutputStream out, Record record) throws IOException
+   {
+      out.writeLong(record.getTimestamp());
+      writeString(out, record.getVersion());
+      writeCounters(out, record.getTotal());
+      writeCounters(out, record.chapters);
+      writeCounters(out, record.sections);
+   }
+
+   private static Record readRecord(ByteBuffer in)
+   {
+      long timestamp = in.getLong();
+      String version = readString(in);
+      CoverageStatistics.Counters total = readCounters(in);
+      Map<String, CoverageStatistics.Counters> chapters = readCountersMap(in);
+      Map<String, CoverageStatistics.Counters> sections = readCountersMap(in);
+      return new Record(timestamp, version, total, chapters, sections);
+   }
+
+   private static void writeCounters(DataOutputStream out, Map<String, CoverageStatistics.Counters> counters)
+         throws IOException
+   {
+      out.writeInt(counters.size());
+      for (Map.Entry<String, CoverageStatistics.Counters> entry : counters.entrySet())
+      {
+         writeString(out, entry.getKey());
+         writeCounters(out, entry.getValue());
+      }
+   }
+
+   private static Map<String, CoverageStatistics.Counters> readCountersMap(ByteBuffer in)
+   {
+      int size = in.getInt();
+      if (size < 0 || size > in.remaining())
+      {
+         throw new BufferUnderflowException();
+      }
+      Map<String, CoverageStatistics.Counters> counters = new LinkedHashMap<String, CoverageStatistics.Counters>(
+            size * 4 / 3 + 1);
+      for (int i = 0; i < size; i++)
+      {
+         counters.put(readString(in), readCounters(in));
+      }
+      return counters;
+   }
+
+   private static void writeCounters(DataOutputStream out, CoverageStatistics.Counters counters) throws IOException
+   {
+      out.writeInt(counters.getAssertions());
+      out.writeInt(counters.getTestable());
+      out.writeInt(counters.getTestCount());
+      out.writeInt(counters.getImplemented());
+      out.writeInt(counters.getUnimplemented());
+   }
+
+   private static CoverageStatistics.Counters readCounters(ByteBuffer in)
+   {
+      return new CoverageStatistics.Counters(in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt());
+   }
+
+   private static void writeString(DataOutputStream out, String value) throws IOException
+   {
+      if (value == null)
+      {
+         out.writeInt(-1);
+      }
+      else
+      {
+         byte[] bytes = value.getBytes(UTF_8);
+         out.writeInt(bytes.length);
+         out.write(bytes);
+      }
+   }
+
+   private static String readString(ByteBuffer in)
+   {
+      int length = in.getInt();
+      if (length == -1)
+      {
+         return null;
+      }
+      // Checked before allocating, so that a corrupt length is not mistaken for a huge string
+      if (length < 0 || length > in.remaining())
+      {
+         throw new BufferUnderflowException();
+      }
+      byte[] bytes = new byte[length];
+      in.get(bytes);
+      return new String(bytes, UTF_8);
+   }
+}
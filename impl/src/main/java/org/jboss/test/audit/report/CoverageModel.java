@@ -0,0 +1,395 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.test.audit.report.CoverageReport.TestStatus;
+
+/**
+ * Immutable coverage of a spec: its counters, chapters, sections and
+ * assertions with their status and covering tests. The model is built once
+ * per report from its statistics, and passed to the renderers in a single
+ * traversal, see {@link #accept(List)}. The covering tests are copied from
+ * the spec references, so that renderers can not change the statistics the
+ * rest of the report is written from.
+ */
+public final class CoverageModel
+{
+   /**
+    * A chapter, with the counters of all its sections
+    */
+   public static final class Chapter
+   {
+      private final String id;
+      private final String title;
+      private final CoverageStatistics.Counters counters;
+
+      Chapter(String id, String title, CoverageStatistics.Counters counters)
+      {
+         this.id = id;
+         this.title = title;
+         this.counters = counters;
+      }
+
+      public String getId()
+      {
+         return id;
+      }
+
+      public String getTitle()
+      {
+         return title;
+      }
+
+      public CoverageStatistics.Counters getCounters()
+      {
+         return counters;
+      }
+   }
+
+   /**
+    * A section, in report order
+    */
+   public static final class Section
+   {
+      private final String id;
+      private final String originalId;
+      private final String title;
+      private final int depth;
+      private final CoverageStatistics.Counters counters;
+      private final CoverageStatistics.Counters subtotal;
+      private final List<Assertion> assertions;
+
+      Section(String id, String originalId, String title, int depth, CoverageStatistics.Counters counters,
+            CoverageStatistics.Counters subtotal, List<Assertion> assertions)
+      {
+         this.id = id;
+         this.originalId = originalId;
+         this.title = title;
+         this.depth = depth;
+         this.counters = counters;
+         this.subtotal = subtotal;
+         this.assertions = assertions;
+      }
+
+      public String getId()
+      {
+         return id;
+      }
+
+      /**
+       * @return the section id in the audit file, or null if the section ids are not generated
+       */
+      public String getOriginalId()
+      {
+         return originalId;
+      }
+
+      public String getTitle()
+      {
+         return title;
+      }
+
+      /**
+       * @return the depth in the section tree, 1 for a chapter
+       */
+      public int getDepth()
+      {
+         return depth;
+      }
+
+      /**
+       * @return the counters of the assertions defined directly in the section
+       */
+      public CoverageStatistics.Counters getCounters()
+      {
+         return counters;
+      }
+
+      /**
+       * @return the counters of the section including all its subsections
+       */
+      public CoverageStatistics.Counters getSubtotal()
+      {
+         return subtotal;
+      }
+
+      /**
+       * @return the assertions defined directly in the section
+       */
+      public List<Assertion> getAssertions()
+      {
+         return assertions;
+      }
+   }
+
+   /**
+    * A test method covering an assertion
+    */
+   public static final class Reference
+   {
+      private final String packageName;
+      private final String className;
+      private final String methodName;
+      private final List<String> groups;
+
+      Reference(SpecReference reference)
+      {
+         this.packageName = reference.getPackageName();
+         this.className = reference.getClassName();
+         this.methodName = reference.getMethodName();
+         this.groups = Collections.unmodifiableList(new ArrayList<String>(reference.getGroups()));
+      }
+
+      public String getPackageName()
+      {
+         return packageName;
+      }
+
+      public String getClassName()
+      {
+         return className;
+      }
+
+      public String getMethodName()
+      {
+         return methodName;
+      }
+
+      /**
+       * @return the TestNG groups of the test method
+       */
+      public List<String> getGroups()
+      {
+         return groups;
+      }
+
+      /**
+       * @return the fully qualified class name and method name
+       */
+      public String getFqn()
+      {
+         return packageName + "." + className + "." + methodName;
+      }
+   }
+
+   /**
+    * An assertion with its coverage
+    */
+   public static final class Assertion
+   {
+      private final String id;
+      private final String text;
+      private final String note;
+      private final String groupText;
+      private final boolean testable;
+      private final boolean implied;
+      private final TestStatus status;
+      private final List<Reference> references;
+
+      Assertion(AuditAssertion assertion, CoverageStatistics.AssertionCoverage coverage)
+      {
+         this.id = assertion.getId();
+         this.text = assertion.getText();
+         this.note = assertion.getNote();
+         this.groupText = assertion.getGroup() == null ? null : assertion.getGroup().getText();
+         this.testable = assertion.isTestable();
+         this.implied = assertion.isImplied();
+         this.status = coverage.getStatus();
+         List<Reference> references = new ArrayList<Reference>(coverage.getReferences().size());
+         for (SpecReference reference : coverage.getReferences())
+         {
+            references.add(new Reference(reference));
+         }
+         this.references = Collections.unmodifiableList(references);
+      }
+
+      public String getId()
+      {
+         return id;
+      }
+
+      public String getText()
+      {
+         return text;
+      }
+
+      public String getNote()
+      {
+         return note;
+      }
+
+      /**
+       * @return the text of the group of the assertion, or null if it is not grouped
+       */
+      public String getGroupText()
+      {
+         return groupText;
+      }
+
+      public boolean isTestable()
+      {
+         return testable;
+      }
+
+      public boolean isImplied()
+      {
+         return implied;
+      }
+
+      public TestStatus getStatus()
+      {
+         return status;
+      }
+
+      /**
+       * @return the covering tests, in report order
+       */
+      public List<Reference> getReferences()
+      {
+         return references;
+      }
+   }
+
+   private final String specId;
+   private final String name;
+   private final String version;
+   private final CoverageStatistics.Counters total;
+   private final List<Chapter> chapters;
+   private final List<Section> sections;
+
+   private CoverageModel(String specId, String name, String version, CoverageStatistics.Counters total,
+         List<Chapter> chapters, List<Section> sections)
+   {
+      this.specId = specId;
+      this.name = name;
+      this.version = version;
+      this.total = total;
+      this.chapters = chapters;
+      this.sections = sections;
+   }
+
+   /**
+    * @return the model of the coverage in the statistics
+    */
+   static CoverageModel of(AuditParser auditParser, CoverageStatistics statistics)
+   {
+      List<Chapter> chapters = new ArrayList<Chapter>();
+      for (String chapterId : statistics.getChapterIds())
+      {
+         chapters.add(new Chapter(chapterId, auditParser.getSectionTitle(chapterId),
+               statistics.getChapterCounters(chapterId)));
+      }
+
+      List<Section> sections = new ArrayList<Section>();
+      for (String sectionId : auditParser.getSectionIds())
+      {
+         List<Assertion> assertions = new ArrayList<Assertion>();
+         for (AuditAssertion assertion : auditParser.getAssertionsForSection(sectionId))
+         {
+            assertions.add(new Assertion(assertion, statistics.getCoverage(assertion)));
+         }
+         sections.add(new Section(sectionId,
+               auditParser.hasSectionIdsGenerated() ? auditParser.getSectionOriginalId(sectionId) : null,
+               auditParser.getSectionTitle(sectionId), auditParser.getSectionTree().getDepth(sectionId),
+               statistics.getSectionCounters(sectionId), statistics.getSubtotalCounters(sectionId),
+               Collections.unmodifiableList(assertions)));
+      }
+
+      return new CoverageModel(auditParser.getSpecId(), auditParser.getName(), auditParser.getVersion(),
+            statistics.getTotalCounters(), Collections.unmodifiableList(chapters),
+            Collections.unmodifiableList(sections));
+   }
+
+   public String getSpecId()
+   {
+      return specId;
+   }
+
+   public String getName()
+   {
+      return name;
+   }
+
+   public String getVersion()
+   {
+      return version;
+   }
+
+   /**
+    * @return the counters of all chapters
+    */
+   public CoverageStatistics.Counters getTotal()
+   {
+      return total;
+   }
+
+   public List<Chapter> getChapters()
+   {
+      return chapters;
+   }
+
+   public List<Section> getSections()
+   {
+      return sections;
+   }
+
+   /**
+    * Pass the model to the visitors in a single traversal: the spec, then each chapter, then each section with
+    * its assertions. Each element is passed to all visitors before the next one.
+    */
+   public void accept(List<? extends CoverageVisitor> visitors) throws IOException
+   {
+      for (CoverageVisitor visitor : visitors)
+      {
+         visitor.beginSpec(this);
+      }
+      for (Chapter chapter : chapters)
+      {
+         for (CoverageVisitor visitor : visitors)
+         {
+            visitor.visitChapter(chapter);
+         }
+      }
+      for (Section section : sections)
+      {
+         for (CoverageVisitor visitor : visitors)
+         {
+            visitor.beginSection(section);
+         }
+         for (Assertion assertion : section.getAssertions())
+         {
+            for (CoverageVisitor visitor : visitors)
+            {
+               visitor.visitAssertion(section, assertion);
+            }
+         }
+         for (CoverageVisitor visitor : visitors)
+         {
+            visitor.endSection(section);
+         }
+      }
+      for (CoverageVisitor visitor : visitors)
+      {
+         visitor.endSpec(this);
+      }
+   }
+}
@@ -2,17 +2,26 @@ package org.jboss.test.audit.report;
 
 import static javax.lang.model.SourceVersion.RELEASE_6;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
@@ -24,10 +33,12 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
 
 import org.jboss.test.audit.annotations.SpecAssertion;
 import org.jboss.test.audit.annotations.SpecAssertions;
 import org.jboss.test.audit.annotations.SpecVersion;
+import org.jboss.test.audit.config.PropertyKeys;
 import org.jboss.test.audit.config.RuntimeProperties;
 
 /**
@@ -50,6 +61,8 @@ public class CoverageProcessor extends AbstractProcessor {
 
     private static final String DEFAULT_AUDIT_FILE_NAME = "test-audit.xml";
 
+    private static final String AUDIT_MODEL_CACHE_DIR = "audit-cache";
+
     private final RuntimeProperties properties = new RuntimeProperties();
 
     private final Map<String,List<SpecReference>> references = new HashMap<String,List<SpecReference>>();
@@ -61,6 +74,13 @@ public class CoverageProcessor extends AbstractProcessor {
     public CoverageProcessor() {
     }
 
+    /**
+     * @return the models of the audit files by spec id, in the order the files were specified
+     */
+    Map<String,AuditParser> getAuditParsers() {
+        return auditParsers;
+    }
+
     @Override
     public void init(ProcessingEnvironment env) {
         super.init(env);
@@ -68,41 +88,132 @@ public class CoverageProcessor extends AbstractProcessor {
         createOutputDirs();
 
         File[] auditFiles = getAuditFiles();
-        auditParsers = new HashMap<String,AuditParser>();
+        auditParsers = new LinkedHashMap<String,AuditParser>();
 
-        for (File f : auditFiles)
+        byte[][] contents = new byte[auditFiles.length][];
+        for (int i = 0; i < auditFiles.length; i++)
         {
-           InputStream in = getAuditFileInputStream(f);
+           contents[i] = readAuditFile(auditFiles[i]);
 
-           if (in == null) {
+           if (contents[i] == null) {
                return;
            }
+        }
 
-           AuditParser auditParser = null;
+        final AuditModelCache cache = properties.getBooleanValue(PropertyKeys.AUDIT_MODEL_CACHE, true, false)
+                ? new AuditModelCache(new File(baseDir, AUDIT_MODEL_CACHE_DIR)) : null;
 
-           try {
-               auditParser = new AuditParser(in, properties);
-               auditParser.parse();
-               auditParsers.put(auditParser.getSpecId(), auditParser);
-           }
-           catch (Exception e) {
-              e.printStackTrace();
-               throw new RuntimeException("Unable to parse audit file.", e);
-           }
+        // Parse concurrently, but fill the map in the order the files were specified
+        ExecutorService executor = newExecutor("audit-parser", auditFiles.length);
+        try {
+            List<Future<AuditParser>> futures = new ArrayList<Future<AuditParser>>();
+            for (final byte[] content : contents)
+            {
+               futures.add(executor.submit(new Callable<AuditParser>() {
+                   @Override
+                   public AuditParser call() throws Exception {
+                       return loadAuditParser(cache, content);
+                   }
+               }));
+            }
+
+            RuntimeException failure = null;
+            for (int i = 0; i < auditFiles.length; i++)
+            {
+               try {
+                   AuditParser auditParser = futures.get(i).get();
+                   auditParsers.put(auditParser.getSpecId(), auditParser);
+               }
+               catch (ExecutionException e) {
+                   String message = "Unable to parse audit file - " + auditFiles[i].getAbsolutePath();
+                   System.err.println(message);
+                   e.getCause().printStackTrace();
+                   // The first failure is thrown, the failures of later files are suppressed by it
+                   RuntimeException fileFailure = new RuntimeException(message, e.getCause());
+                   if (failure == null) {
+                       failure = fileFailure;
+                   }
+                   else {
+                       failure.addSuppressed(fileFailure);
+                   }
+               }
+            }
+
+            if (cache != null) {
+                // Entries of earlier versions of the audit files
+                cache.prune();
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while parsing audit files.", e);
         }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return an executor with at most one thread per task and per available processor
+     */
+    private static ExecutorService newExecutor(final String name, int tasks) {
+        int threads = Math.max(1, Math.min(tasks, Runtime.getRuntime().availableProcessors()));
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 
-    private InputStream getAuditFileInputStream(File file) {
-        InputStream in;
+    /**
+     * Load the model from the binary cache in the output directory if the audit file is unchanged since the
+     * cache entry was written, otherwise parse the audit file and update the cache.
+     *
+     * @param cache the cache, or null if it is disabled
+     */
+    private AuditParser loadAuditParser(AuditModelCache cache, byte[] content) throws Exception {
+        if (cache == null) {
+            return new AuditParser(new ByteArrayInputStream(content), properties).parse();
+        }
+
+        byte[] hash = AuditModelCache.hash(content);
+
+        AuditParser auditParser = cache.load(hash);
+        if (auditParser != null) {
+            return auditParser;
+        }
+
+        auditParser = new AuditParser(new ByteArrayInputStream(content), properties).parse();
+        try {
+            cache.store(hash, auditParser);
+        }
+        catch (IOException e) {
+            System.err.println("Unable to write audit model cache - " + e.getMessage());
+        }
+        return auditParser;
+    }
+
+    private byte[] readAuditFile(File file) {
+        byte[] content;
         try {
-            in = new FileInputStream(file);
+            content = Files.readAllBytes(file.toPath());
         }
         catch (IOException ex) {
            System.err.println("Unable to open audit file - " + file.getAbsolutePath());
            System.err.println("No report generated");
            return null;
         }
-        return in;
+        return content;
     }
 
     private File[] getAuditFiles()
@@ -174,20 +285,91 @@ public class CoverageProcessor extends AbstractProcessor {
             processAnnotatedMethods(roundEnvironment, type);
         }
 
-		if (roundEnvironment.processingOver()) {
-			for (AuditParser auditParser : auditParsers.values()) {
-				try {
-					new CoverageReport(references.get(auditParser.getSpecId()),
-							auditParser, getImagesDir(), properties)
-							.generateToOutputDir(baseDir);
-				} catch (IOException e) {
-					throw new RuntimeException(e);
-				}
-			}
+        if (roundEnvironment.processingOver()) {
+            generateReports();
         }
         return false;
     }
 
+    /**
+     * Generate the report of each spec concurrently, or only check the coverage of each spec in gate mode.
+     * Failures are reported once all reports are done.
+     */
+    private void generateReports() {
+        final File imagesDir = getImagesDir();
+        final boolean gate = properties.getBooleanValue(PropertyKeys.COVERAGE_GATE, false, false);
+        List<AuditParser> parsers = new ArrayList<AuditParser>(auditParsers.values());
+
+        ExecutorService executor = newExecutor("coverage-report", parsers.size());
+        try {
+            List<Future<CoverageGate>> futures = new ArrayList<Future<CoverageGate>>();
+            for (final AuditParser auditParser : parsers)
+            {
+               futures.add(executor.submit(new Callable<CoverageGate>() {
+                   @Override
+                   public CoverageGate call() throws Exception {
+                       CoverageReport report = new CoverageReport(references.get(auditParser.getSpecId()),
+                               auditParser, imagesDir, properties);
+                       if (gate) {
+                           return report.checkGate(baseDir);
+                       }
+                       report.generateToOutputDir(baseDir);
+                       return null;
+                   }
+               }));
+            }
+
+            RuntimeException failure = null;
+            for (int i = 0; i < parsers.size(); i++)
+            {
+               try {
+                   CoverageGate result = futures.get(i).get();
+                   if (result != null) {
+                       reportGate(parsers.get(i).getSpecId(), result);
+                   }
+               }
+               catch (ExecutionException e) {
+                   String message = "[" + parsers.get(i).getSpecId() + "] Unable to generate coverage report";
+                   System.err.println(message);
+                   e.getCause().printStackTrace();
+                   // The first failure is thrown, the failures of later specs are suppressed by it
+                   RuntimeException specFailure = new RuntimeException(message, e.getCause());
+                   if (failure == null) {
+                       failure = specFailure;
+                   }
+                   else {
+                       failure.addSuppressed(specFailure);
+                   }
+               }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating coverage reports.", e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Report the failures of the gate as errors, which fail the build, and its warnings as warnings
+     */
+    private void reportGate(String specId, CoverageGate gate) {
+        Messager messager = processingEnv.getMessager();
+        for (String failure : gate.getFailures()) {
+            messager.printMessage(Kind.ERROR, "[" + specId + "] " + failure);
+        }
+        for (String warning : gate.getWarnings()) {
+            messager.printMessage(Kind.WARNING, "[" + specId + "] " + warning);
+        }
+        System.out.println("[" + specId + "] Coverage gate: " + gate.getStatus());
+    }
+
     private void processAnnotatedMethods(RoundEnvironment env, TypeElement annotation) {
         Set<Element> elements = (Set<Element>) env.getElementsAnnotatedWith(annotation);
         for (Element element : elements) {
@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.Writer;
+
+/**
+ * Renders the coverage model of a report to a file in the output directory.
+ *
+ * <p>
+ * Renderers are discovered with {@link java.util.ServiceLoader}, from
+ * <code>META-INF/services/org.jboss.test.audit.report.CoverageRenderer</code>
+ * files on the class path of the processor, and selected by their format in
+ * {@link org.jboss.test.audit.config.PropertyKeys#EXPORT_FORMATS}. All
+ * selected renderers visit the same model in a single traversal.
+ * </p>
+ */
+public interface CoverageRenderer
+{
+   /**
+    * @return the format name which selects the renderer
+    */
+   String getFormat();
+
+   /**
+    * @return the name of the file in the output directory the coverage of the spec is rendered to
+    */
+   String getFileName(String specId);
+
+   /**
+    * @param out the file, encoded as UTF-8, which is closed by the caller
+    * @return a visitor rendering one model to the file
+    */
+   CoverageVisitor newVisitor(Writer out);
+}
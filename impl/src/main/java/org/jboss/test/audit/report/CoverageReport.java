@@ -1,24 +1,34 @@
 package org.jboss.test.audit.report;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.GZIPOutputStream;
 
 import org.jboss.test.audit.config.PropertyKeys;
 import org.jboss.test.audit.config.RuntimeProperties;
@@ -36,12 +46,54 @@ public class CoverageReport
       COVERED, UNCOVERED, UNIMPLEMENTED;
    }
 
-   private static final Pattern PATTERN_BOLD = Pattern.compile("([_][^_]*[_])");
-   private static final Pattern PATTERN_STRIKETHROUGH = Pattern
-         .compile("([~][^~]*[~])");
-   private static final Pattern PATTERN_LITERAL = Pattern
-         .compile("([|][^|]*[|])");
    private static final String REPORT_FILE_NAME = "coverage-%s.html";
+   private static final String CHAPTER_FILE_NAME = "coverage-%s-%s.html";
+   private static final String DATA_FILE_NAME = "coverage-%s-data.js";
+   private static final String RENDERER_SCRIPT_NAME = "coverage-report.js";
+   private static final String ARCHIVE_MANIFEST_FILE_NAME = "coverage-%s-archives.properties";
+   private static final String FRAGMENT_CACHE_DIR = "fragment-cache";
+   private static final String SNAPSHOT_FILE_NAME = "coverage-%s.snapshot";
+   private static final String DIFF_FILE_NAME = "coverage-%s-diff.html";
+   private static final String HISTORY_FILE_NAME = "coverage-%s.history";
+   private static final String GATE_FILE_NAME = "coverage-%s-gate.properties";
+
+   private static final int SPARKLINE_WIDTH = 100;
+   private static final int SPARKLINE_HEIGHT = 16;
+
+   /*
+    * Changes whenever the rendering of a section changes, to invalidate the cached fragments
+    */
+   private static final int FRAGMENT_FORMAT_VERSION = 1;
+
+   /**
+    * The whole report is a single page
+    */
+   public static final String LAYOUT_SINGLE = "single";
+   /**
+    * The summaries are on an index page, and the coverage detail is split into one page per chapter
+    */
+   public static final String LAYOUT_CHAPTERS = "chapters";
+   /**
+    * The coverage detail is written as data, which is rendered lazily by a script in the browser
+    */
+   public static final String LAYOUT_DATA = "data";
+
+   /**
+    * Report files are not compressed
+    */
+   public static final String COMPRESSION_NONE = "none";
+   /**
+    * Each report file is also written gzip compressed, with the .gz extension
+    */
+   public static final String COMPRESSION_GZIP = "gzip";
+   /**
+    * Report files are only written gzip compressed
+    */
+   public static final String COMPRESSION_GZIP_ONLY = "gzip_only";
+
+   private static final Charset UTF_8 = Charset.forName("UTF-8");
+   private static final int BUFFER_SIZE = 64 * 1024;
+   private static final int SECTIONS_PER_THREAD_AND_WINDOW = 16;
 
    private static final String COLOUR_SHADE_GREEN = "#ddffdd";
    private static final String COLOUR_SHADE_RED = "#ffdddd";
@@ -57,10 +109,36 @@ public class CoverageReport
     */
    private final Map<String, List<SpecReference>> references;
 
+   /*
+    * Immutable lists of references keyed by the (possibly generated) section id and the assertion id
+    */
+   private final Map<String, Map<String, List<SpecReference>>> referenceIndex;
+
+   /*
+    * Test archive names of the test classes rendered in the report
+    */
+   private final ArchiveNames archiveNames = new ArchiveNames();
+
    private AuditParser auditParser;
 
    private File imageSrcDir;
    private File imageTargetDir;
+   private ImageCopier imageCopier;
+
+   /*
+    * The section ids on each chapter page keyed by the page file name, null if the report is a single page
+    */
+   private Map<String, List<String>> chapterPages;
+
+   /*
+    * The rendered sections of previous reports, null if sections are always rendered
+    */
+   private SectionFragmentCache fragmentCache;
+
+   /*
+    * The counters of the latest reports including this one, oldest first, null if the history is not kept
+    */
+   private List<CoverageHistory.Record> history;
 
    private RuntimeProperties properties;
 
@@ -77,6 +155,9 @@ public class CoverageReport
    private Set<String> unimplementedTestGroups;
    private Map<String, Set<Method>> summaryTestGroups;
 
+   private CoverageStatistics statistics;
+   private CoverageModel model;
+
    public CoverageReport(List<SpecReference> references,
          AuditParser auditParser, File imageSrcDir, RuntimeProperties properties)
    {
@@ -109,6 +190,7 @@ public class CoverageReport
       this.auditParser = auditParser;
       this.imageSrcDir = imageSrcDir;
       this.properties = properties;
+      this.referenceIndex = indexReferences();
 
       try
       {
@@ -195,10 +277,13 @@ public class CoverageReport
     */
    public void generateToOutputDir(File outputDir) throws IOException {
 
-	  System.out.println("Generate coverage report: "+auditParser.getName());
+	  // Reports of several specs may be generated concurrently, so log lines name their spec
+	  System.out.println("[" + auditParser.getSpecId() + "] Generate coverage report: "+auditParser.getName());
+
+	  // Resolved first, so that an unknown export format fails before anything is written
+	  List<CoverageRenderer> renderers = getRenderers();
 
 	  File coverageFile = new File(outputDir, String.format(REPORT_FILE_NAME, auditParser.getSpecId()));
-	  FileOutputStream out = new FileOutputStream(coverageFile);
 
 	  imageTargetDir = new File(outputDir, "/images");
 	  if (!imageTargetDir.exists())
@@ -206,495 +291,986 @@ public class CoverageReport
 	    	  imageTargetDir.mkdirs();
 	  }
 
-	  copyResourceImage("stickynote.png");
-	  copyResourceImage("blank.png");
+	  copyResource("stickynote.png", imageTargetDir);
+	  copyResource("blank.png", imageTargetDir);
+
+	  String layout = properties.getStringValue(PropertyKeys.REPORT_LAYOUT, LAYOUT_SINGLE, false);
+	  history = null;
+	  CoverageHistory coverageHistory = null;
+	  CoverageHistory.Record record = null;
+	  if (properties.getBooleanValue(PropertyKeys.COVERAGE_HISTORY, false, false))
+	  {
+	     coverageHistory = new CoverageHistory(new File(outputDir, String.format(HISTORY_FILE_NAME,
+	           auditParser.getSpecId())), auditParser.getSpecId());
+	     record = CoverageHistory.Record.of(System.currentTimeMillis(), auditParser, getStatistics());
+	     history = readHistory(coverageHistory, record,
+	           properties.getIntValue(PropertyKeys.COVERAGE_HISTORY_LENGTH, 20, false));
+	  }
+
+	  // The data layout renders no sections
+	  fragmentCache = null;
+	  if (!LAYOUT_DATA.equals(layout) && properties.getBooleanValue(PropertyKeys.REPORT_FRAGMENT_CACHE, false, false))
+	  {
+	     fragmentCache = new SectionFragmentCache(new File(new File(outputDir, FRAGMENT_CACHE_DIR),
+	           auditParser.getSpecId()), getFragmentSalt());
+	  }
+	  if (LAYOUT_CHAPTERS.equals(layout))
+	  {
+	     generateChapterPages(outputDir, coverageFile);
+	  }
+	  else if (LAYOUT_DATA.equals(layout))
+	  {
+	     generateDataPage(outputDir, coverageFile);
+	  }
+	  else
+	  {
+	     Writer out = openReportFile(coverageFile);
+	     try
+	     {
+	        generate(out);
+	     }
+	     finally
+	     {
+	        out.close();
+	     }
+	  }
+
+	  archiveNames.writeManifest(new File(outputDir, String.format(ARCHIVE_MANIFEST_FILE_NAME,
+	        auditParser.getSpecId())));
+
+	  if (fragmentCache != null)
+	  {
+	     fragmentCache.prune();
+	  }
+
+	  writeExports(outputDir, renderers);
+	  writeSnapshotAndDiff(outputDir);
 
-	  generate(out);
+	  // Only a report which was written joins the history, so failed builds leave no points in the trend
+	  if (coverageHistory != null)
+	  {
+	     try
+	     {
+	        coverageHistory.append(record);
+	     }
+	     catch (IOException e)
+	     {
+	        System.err.println("[" + auditParser.getSpecId() + "] Unable to write coverage history - "
+	              + e.getMessage());
+	     }
+	  }
    }
 
    /**
-    *
-    * @param out
-    * @throws IOException
+    * @return the latest records of the history followed by the record of this report, at most length, which is
+    *         only appended to the history once the report is written
     */
-   public void generate(OutputStream out) throws IOException
+   private List<CoverageHistory.Record> readHistory(CoverageHistory coverageHistory, CoverageHistory.Record record,
+         int length)
    {
-      calculateUnmatched();
-      writeHeader(out);
-      writeContents(out);
-      writeTestCoverageDistribution(out);
-      writeChapterSummary(out);
-      writeSectionSummary(out);
-      writeCoverage(out);
-      writeUnmatched(out);
-      writeUnversioned(out);
-      writeTestGroupSummary(out);
-      writeFooter(out);
+      List<CoverageHistory.Record> records = new ArrayList<CoverageHistory.Record>();
+      if (length <= 0)
+      {
+         return records;
+      }
+      try
+      {
+         records.addAll(coverageHistory.readLast(length - 1));
+      }
+      catch (IOException e)
+      {
+         System.err.println("[" + auditParser.getSpecId() + "] Unable to read coverage history - " + e.getMessage());
+      }
+      records.add(record);
+      return records;
    }
 
-   private void copyResourceImage(String filename) throws IOException
+   /**
+    * Write the diff page against the snapshot of the spec in the baseline directory
+    * {@link PropertyKeys#COVERAGE_BASELINE}, then save the snapshot of this report if
+    * {@link PropertyKeys#COVERAGE_SNAPSHOT} is set. The baseline is read first, so it may be the snapshot of the
+    * previous report in the same output directory. A missing or unreadable baseline, or the baseline of another
+    * spec, only skips the diff.
+    */
+   private void writeSnapshotAndDiff(File outputDir) throws IOException
    {
-      InputStream imageData = this.getClass().getClassLoader()
-            .getResourceAsStream("META-INF/" + filename);
-      FileOutputStream out = new FileOutputStream(new File(imageTargetDir,
-            filename));
-      try
+      String baselineDir = properties.getStringValue(PropertyKeys.COVERAGE_BASELINE, null, false);
+      boolean snapshot = properties.getBooleanValue(PropertyKeys.COVERAGE_SNAPSHOT, false, false);
+      if (baselineDir == null && !snapshot)
+      {
+         return;
+      }
+
+      CoverageSnapshot current = CoverageSnapshot.of(auditParser, getStatistics());
+      CoverageSnapshot baseline = baselineDir != null ? readBaseline(new File(baselineDir, String.format(
+            SNAPSHOT_FILE_NAME, auditParser.getSpecId()))) : null;
+      File diffFile = new File(outputDir, String.format(DIFF_FILE_NAME, auditParser.getSpecId()));
+      if (baseline == null)
       {
-         byte[] buffer = new byte[4096];
-         int read = imageData.read(buffer);
-         while (read != -1)
+         // The diff of an earlier report would be taken for the diff of this one
+         diffFile.delete();
+         new File(diffFile.getPath() + ".gz").delete();
+      }
+      else
+      {
+         Writer out = openReportFile(diffFile);
+         try
+         {
+            writeDiff(out, baseline, new CoverageDiff(baseline, current));
+         }
+         finally
          {
-            out.write(buffer, 0, read);
-            read = imageData.read(buffer);
+            out.close();
          }
+      }
+      if (snapshot)
+      {
+         current.write(new File(outputDir, String.format(SNAPSHOT_FILE_NAME, auditParser.getSpecId())));
+      }
+   }
 
-         out.flush();
-      } finally
+   /**
+    * @return the baseline snapshot, or null if it is missing, can not be read or is the snapshot of another spec
+    */
+   private CoverageSnapshot readBaseline(File file)
+   {
+      if (!file.isFile())
+      {
+         System.err.println("[" + auditParser.getSpecId() + "] No coverage baseline " + file.getAbsolutePath()
+               + ", the diff is skipped");
+         return null;
+      }
+      CoverageSnapshot baseline;
+      try
+      {
+         baseline = CoverageSnapshot.read(file);
+      }
+      catch (IOException e)
+      {
+         System.err.println("[" + auditParser.getSpecId() + "] Unable to read coverage baseline, the diff is skipped - "
+               + e.getMessage());
+         return null;
+      }
+      // Snapshots of audit files without a spec id are written with an empty one
+      String specId = auditParser.getSpecId() == null ? "" : auditParser.getSpecId();
+      if (!specId.equals(baseline.getSpecId()))
       {
-         out.close();
+         System.err.println("[" + auditParser.getSpecId() + "] Coverage baseline " + file.getAbsolutePath()
+               + " is the snapshot of spec " + baseline.getSpecId() + ", the diff is skipped");
+         return null;
       }
+      return baseline;
    }
 
-   private void calculateUnmatched()
+   /**
+    * @return the renderers of the formats listed in {@link PropertyKeys#EXPORT_FORMATS}
+    * @throws IllegalArgumentException if no renderer is found for a format
+    */
+   private List<CoverageRenderer> getRenderers()
    {
-      unmatched = new ArrayList<SpecReference>();
+      List<CoverageRenderer> renderers = new ArrayList<CoverageRenderer>();
+      String formats = properties.getStringValue(PropertyKeys.EXPORT_FORMATS, null, false);
+      if (formats == null)
+      {
+         return renderers;
+      }
+      for (String part : formats.split(","))
+      {
+         String format = part.trim();
+         if (!"".equals(format))
+         {
+            renderers.add(getRenderer(format));
+         }
+      }
+      return renderers;
+   }
 
-      for (String sectionId : references.keySet())
+   /**
+    * Render the model of the report with the renderers, in a single traversal
+    */
+   private void writeExports(File outputDir, List<CoverageRenderer> renderers) throws IOException
+   {
+      if (renderers.isEmpty())
       {
-         for (SpecReference ref : references.get(sectionId))
+         return;
+      }
+
+      List<Writer> writers = new ArrayList<Writer>();
+      try
+      {
+         List<CoverageVisitor> visitors = new ArrayList<CoverageVisitor>();
+         for (CoverageRenderer renderer : renderers)
          {
-            if (!unversioned.contains(ref)
-                  && !auditParser.hasAssertion(ref.getSection(), ref
-                        .getAssertion()))
+            Writer out = openReportFile(new File(outputDir, renderer.getFileName(auditParser.getSpecId())));
+            writers.add(out);
+            visitors.add(renderer.newVisitor(out));
+         }
+         getModel().accept(visitors);
+      }
+      finally
+      {
+         IOException failure = null;
+         for (Writer out : writers)
+         {
+            try
             {
-               unmatched.add(ref);
+               out.close();
+            }
+            catch (IOException e)
+            {
+               if (failure == null)
+               {
+                  failure = e;
+               }
+               else
+               {
+                  failure.addSuppressed(e);
+               }
             }
          }
+         if (failure != null)
+         {
+            throw failure;
+         }
       }
    }
 
-   private void writeHeader(OutputStream out) throws IOException
+   /**
+    * @return the renderer of the format, discovered with {@link ServiceLoader}
+    */
+   private static CoverageRenderer getRenderer(String format)
    {
-      StringBuilder sb = new StringBuilder();
-
-      sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-      sb.append("<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.1//EN\"\n");
-      sb.append("\"http://www.w3.org/TR/xhtml11/DTD/xhtml11.dtd\">\n");
-      sb.append("<html>\n");
-      sb.append("<head><title>" + auditParser.getName() + " TCK Coverage Report</title>\n");
-
-      sb.append("<style type=\"text/css\">\n");
-      sb.append("  body {\n");
-      sb.append("   font-family: verdana, arial, sans-serif;\n");
-      sb.append("   font-size: 11px; }\n");
-      sb.append("  .code {\n");
-      sb.append("    float: left;\n");
-      sb.append("    font-weight: bold;\n");
-      sb.append("    width: 50px;\n");
-      sb.append("    margin-top: 0px;\n");
-      sb.append("    height: 100%; }\n");
-      sb.append("   a.external, a.external:visited, a.external:hover {\n");
-      sb.append("    color: #0000ff;\n");
-      sb.append("    font-size: 9px;\n");
-      sb.append("    font-style: normal;\n");
-      sb.append("    padding-left: 2px;\n");
-      sb.append("    margin-left: 6px;\n");
-      sb.append("    margin-right: 6px;\n");
-      sb.append("    padding-right: 2px; }\n");
-      sb.append("  .results {\n");
-      sb.append("    margin-left: 50px; }\n");
-      sb.append("  .description {\n");
-      sb.append("    margin-top: 2px;\n");
-      sb.append("    margin-bottom: 2px; }\n");
-      sb.append("  .sectionHeader {\n");
-      sb.append("    border-bottom: 1px solid #cccccc;\n");
-      sb.append("    margin-top: 8px;\n");
-      sb.append("    font-weight: bold; }\n");
-      sb.append("  .packageName {\n");
-      sb.append("    color: #999999;\n");
-      sb.append("    font-size: 9px;\n");
-      sb.append("    font-weight: bold; }\n");
-      sb.append("  .groupName {\n");
-      sb.append("    color: #0000FF;\n");
-      sb.append("    font-size: 12px;\n");
-      sb.append("    font-weight: bold; }\n");
-      sb.append("  .embeddedImage {\n");
-      sb.append("    margin: 6px;\n");
-      sb.append("    border: 1px solid black;\n");
-      sb.append("    float: right; }\n");
-      sb.append("  .coverage {\n");
-      sb.append("    clear: both; }\n");
-      sb.append("  .noCoverage {\n");
-      sb.append("    margin-top: 2px;\n");
-      sb.append("    margin-bottom: 2px;\n");
-      sb.append("    font-weight: bold;\n");
-      sb.append("    font-style: italic;\n");
-      sb.append("    color: #ff0000; }\n");
-      sb.append("  .coverageHeader {\n");
-      sb.append("    font-weight: bold;\n");
-      sb.append("    text-decoration: underline;\n");
-      sb.append("    margin-top: 2px;\n");
-      sb.append("    margin-bottom: 2px; }\n");
-      sb.append("  .coverageMethod {\n");
-      sb.append("    font-style: italic; }\n");
-      sb.append("  .highlight {\n");
-      sb.append("    background-color: #ffff00; }\n");
-      sb.append("  .literal {\n");
-      sb.append("   font-family: courier new; }\n");
-      sb.append("  .implied {\n");
-      sb.append("    color: #fff;\n");
-      sb.append("    font-weight: bold;\n");
-      sb.append("    background-color: #000; }\n");
-      sb.append("  .group {\n");
-      sb.append("    border-top: 1px solid #000000;\n");
-      sb.append("    border-bottom: 1px solid #000000;\n");
-      sb.append("    padding-bottom: 1px;\n");
-      sb.append("    margin-bottom: 2px;\n");
-      sb.append("    min-height: 36px;\n");
-      sb.append("    background-color: " + COLOUR_SHADE_LIGHT_GREY + "; }\n");
-      sb.append("  .groupAssertions {\n");
-      sb.append("    padding-bottom: 1px;\n");
-      sb.append("    margin-top: 8px;\n");
-      sb.append("    margin-left: 50px;\n");
-      sb.append("    margin-bottom: 2px;\n");
-      sb.append("    min-height: 36px; \n");
-      sb.append("    background-color: ffffff; }\n");
-      sb.append("  .pass {\n");
-      sb.append("    border-top: 1px solid #488c41;\n");
-      sb.append("    border-bottom: 1px solid #488c41;\n");
-      sb.append("    padding-bottom: 1px;\n");
-      sb.append("    margin-bottom: 2px;\n");
-      sb.append("    min-height: 36px;\n");
-      sb.append("    background-color: " + COLOUR_SHADE_GREEN + "; }\n");
-      sb.append("  .fail {\n");
-      sb.append("    border-top: 1px solid #ab2020;\n");
-      sb.append("    border-bottom: 1px solid #ab2020;\n");
-      sb.append("    padding-bottom: 1px;\n");
-      sb.append("    margin-bottom: 2px;\n");
-      sb.append("    min-height: 36px;\n");
-      sb.append("    background-color: " + COLOUR_SHADE_RED + "; }\n");
-      sb.append("  .skip {\n");
-      sb.append("    border-top: 1px solid #ff9900;\n");
-      sb.append("    border-bottom: 1px solid #ff9900;\n");
-      sb.append("    padding-bottom: 1px;\n");
-      sb.append("    margin-bottom: 2px;\n");
-      sb.append("    min-height: 36px;\n");
-      sb.append("    background-color: " + COLOUR_SHADE_ORANGE + "; }\n");
-      sb.append("  .untestable {\n");
-      sb.append("    padding-bottom: 16px;\n");
-      sb.append("    margin-bottom: 2px;\n");
-      sb.append("    border-top: 1px solid #317ba6;\n");
-      sb.append("    border-bottom: 1px solid #317ba6;\n");
-      sb.append("    min-height: 36px;\n");
-      sb.append("    background-color: " + COLOUR_SHADE_BLUE + "; }\n");
-      sb.append("  .stickynote {\n");
-      // sb
-      //      .append("    background: url(http://www.seamframework.org/service/File/94243) left top no-repeat;\n");
-      sb.append("    position: absolute;\n");
-      sb.append("    left: 16px;\n");
-      // sb.append("    width: 20px;\n");
-      // sb.append("    height: 20px;\n");
-      sb.append("    margin-top: 2em; }\n");
-      sb.append("</style>\n");
-
-      sb.append("</head><body>");
-      sb.append("<h1>" + auditParser.getName() + " TCK Coverage</h1>");
-      sb.append("<h2>");
-      sb.append(auditParser.getVersion());
-      sb.append("</h2>\n");
-
-      out.write(sb.toString().getBytes());
+      for (CoverageRenderer renderer : ServiceLoader.load(CoverageRenderer.class,
+            CoverageReport.class.getClassLoader()))
+      {
+         if (format.equals(renderer.getFormat()))
+         {
+            return renderer;
+         }
+      }
+      throw new IllegalArgumentException("Unknown export format " + format);
    }
 
-   private void writeContents(OutputStream out) throws IOException
+   /**
+    * @return the coverage model of the report, built once from the statistics
+    */
+   public CoverageModel getModel()
    {
-      StringBuilder sb = new StringBuilder();
+      if (model == null)
+      {
+         model = CoverageModel.of(auditParser, getStatistics());
+      }
+      return model;
+   }
 
-      sb.append("<h3>Contents</h3>\n");
-      sb.append("<div><a href=\"#chapterSummary\">Chapter Summary</a></div>\n");
-      sb.append("<div><a href=\"#sectionSummary\">Section Summary</a></div>\n");
-      sb.append("<div><a href=\"#coverageDetail\">Coverage Detail</a></div>\n");
-      sb.append("<div><a href=\"#unmatched\">Unmatched Tests</a></div>\n");
-      sb.append("<div><a href=\"#unversioned\">Unversioned Tests</a></div>\n");
-      sb.append("<div><a href=\"#groupsummary\">Test Group Summary</a></div>\n");
+   /**
+    * Check the coverage against the thresholds without rendering the report, and write the result to the output
+    * directory
+    *
+    * @return the gate, with the failures and warnings
+    */
+   CoverageGate checkGate(File outputDir) throws IOException
+   {
+      CoverageGate gate = new CoverageGate(auditParser, getStatistics(), failThreshold, passThreshold,
+            properties.getBooleanValue(PropertyKeys.COVERAGE_GATE_PER_CHAPTER, false, false));
+      gate.write(new File(outputDir, String.format(GATE_FILE_NAME, auditParser.getSpecId())));
+      return gate;
+   }
 
-      out.write(sb.toString().getBytes());
+   /**
+    * Write the report to the stream, encoded as UTF-8. The stream is flushed but not closed.
+    *
+    * @param out
+    * @throws IOException
+    */
+   public void generate(OutputStream out) throws IOException
+   {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8), BUFFER_SIZE);
+      generate(writer);
+      writer.flush();
    }
 
-   private void writeTestCoverageDistribution(OutputStream out) throws IOException
+   private void generate(Writer out) throws IOException
    {
-      StringBuilder sb = new StringBuilder();
-      sb.append("<h3 id=\"coverageDistribution\">Coverage Distribution</h3>\n");
+      prepare();
+      try
+      {
+         writeHeader(out);
+         writeContents(out);
+         writeTestCoverageDistribution(out);
+         writeChapterSummary(out);
+         writeSectionSummary(out);
+         writeCoverage(out);
+         writeUnmatched(out);
+         writeUnversioned(out);
+         writeTestGroupSummary(out);
+         writeFooter(out);
+      }
+      finally
+      {
+         imageCopier.finish();
+      }
+   }
 
-      SeriesGenerator gen = new SeriesGenerator();
+   private void prepare()
+   {
+      getStatistics();
+      calculateUnmatched();
+      imageCopier = new ImageCopier(imageSrcDir, imageTargetDir, properties.getIntValue(
+            PropertyKeys.IMAGE_COPY_THREADS, 4, false));
+   }
 
-      for (String sectionId : auditParser.getSectionIds())
+   /**
+    * Write the summaries to the report page, with a placeholder for the coverage detail of each section. The
+    * coverage detail is written to a data script next to the page, and rendered in the browser.
+    */
+   private void generateDataPage(File outputDir, File coverageFile) throws IOException
+   {
+      prepare();
+      String dataFileName = String.format(DATA_FILE_NAME, auditParser.getSpecId());
+      try
+      {
+         Writer out = openReportFile(coverageFile);
+         try
+         {
+            writeHeader(out);
+            writeContents(out);
+            writeTestCoverageDistribution(out);
+            writeChapterSummary(out);
+            writeSectionSummary(out);
+            writeCoveragePlaceholders(out);
+            writeUnmatched(out);
+            writeUnversioned(out);
+            writeTestGroupSummary(out);
+            out.append("<script type=\"text/javascript\" src=\"" + RENDERER_SCRIPT_NAME + "\"></script>\n");
+            out.append("<script type=\"text/javascript\" src=\"" + dataFileName + "\"></script>\n");
+            writeFooter(out);
+         }
+         finally
+         {
+            out.close();
+         }
+
+         Map<String, String> links = new LinkedHashMap<String, String>();
+         links.put("specification", specificationBaseUrl);
+         links.put("fisheye", fisheyeBaseUrl);
+         links.put("svn", svnBaseUrl);
+         links.put("github", githubBaseUrl);
+         out = openReportFile(new File(outputDir, dataFileName));
+         try
+         {
+            new CoverageDataWriter(auditParser, statistics, archiveNames, imageCopier, links).write(out);
+         }
+         finally
+         {
+            out.close();
+         }
+
+         copyResource(RENDERER_SCRIPT_NAME, outputDir);
+      }
+      finally
       {
-         int testable = 0;
-         int implemented = 0;
-         int unimplemented = 0;
+         imageCopier.finish();
+      }
+   }
 
-         for (AuditAssertion assertion : auditParser
-               .getAssertionsForSection(sectionId))
+   /**
+    * Write the summaries to the index page, and the coverage detail of each chapter to its own page
+    */
+   private void generateChapterPages(File outputDir, File indexFile) throws IOException
+   {
+      prepare();
+      chapterPages = groupSectionsByChapterPage();
+      try
+      {
+         Writer out = openReportFile(indexFile);
+         try
          {
-            if (assertion.isTestable())
-               testable++;
+            writeHeader(out);
+            writeContents(out);
+            writeTestCoverageDistribution(out);
+            writeChapterSummary(out);
+            writeSectionSummary(out);
+            writeChapterPageIndex(out);
+            writeUnmatched(out);
+            writeUnversioned(out);
+            writeTestGroupSummary(out);
+            writeFooter(out);
+         }
+         finally
+         {
+            out.close();
+         }
 
-            TestStatus status = getStatus(getCoverageForAssertion(sectionId,
-                  assertion.getId()));
-            if (status.equals(TestStatus.COVERED))
+         for (Map.Entry<String, List<String>> page : chapterPages.entrySet())
+         {
+            out = openReportFile(new File(outputDir, page.getKey()));
+            try
             {
-               implemented++;
-            } else if (status.equals(TestStatus.UNIMPLEMENTED))
+               writeHeader(out);
+               out.append("<div><a href=\"" + indexFile.getName() + "\">Summary</a></div>\n");
+               writeCoverage(out, page.getValue());
+               writeFooter(out);
+            }
+            finally
             {
-               unimplemented++;
+               out.close();
             }
          }
+      }
+      finally
+      {
+         chapterPages = null;
+         imageCopier.finish();
+      }
+   }
 
-         gen.addValue(testable > 0 ? ((implemented * 1.0) / testable) * 100
-               : -1);
+   /**
+    * @return the section ids of each chapter in report order, keyed by the file name of the chapter page
+    */
+   private Map<String, List<String>> groupSectionsByChapterPage()
+   {
+      Map<String, List<String>> pages = new LinkedHashMap<String, List<String>>();
+      for (String sectionId : auditParser.getSectionIds())
+      {
+         String fileName = getChapterFileName(sectionId);
+         List<String> sectionIds = pages.get(fileName);
+         if (sectionIds == null)
+         {
+            sectionIds = new ArrayList<String>();
+            pages.put(fileName, sectionIds);
+         }
+         sectionIds.add(sectionId);
       }
+      return pages;
+   }
 
-      sb.append(new BarChartGenerator(COLOUR_GRAPH_GRADIENT_FROM,
-            COLOUR_GRAPH_GRADIENT_TO, gen.getSeries(10, 10)).generate());
+   private String getChapterFileName(String sectionId)
+   {
+      int dot = sectionId.indexOf('.');
+      String chapter = dot < 0 ? sectionId : sectionId.substring(0, dot);
+      return String.format(CHAPTER_FILE_NAME, auditParser.getSpecId(), chapter.replaceAll("[^A-Za-z0-9_-]", "_"));
+   }
 
-      out.write(sb.toString().getBytes());
+   /**
+    * @param sectionId
+    * @return the link to the coverage detail of the section, which is on a chapter page in the chapters layout
+    */
+   private String linkTo(String sectionId)
+   {
+      return chapterPages != null ? getChapterFileName(sectionId) + "#" + sectionId : "#" + sectionId;
    }
 
-   private void writeChapterSummary(OutputStream out) throws IOException
+   /**
+    * Open a report file for writing. Depending on the compression, the file is written as is, with a gzip
+    * compressed sibling, or only compressed. Both are written while the report is rendered.
+    */
+   private Writer openReportFile(File file) throws IOException
    {
-      StringBuilder sb = new StringBuilder();
+      String compression = properties.getStringValue(PropertyKeys.REPORT_COMPRESSION, COMPRESSION_NONE, false);
+      File gzipFile = new File(file.getParentFile(), file.getName() + ".gz");
 
-      sb.append("<h3 id=\"chapterSummary\">Chapter Summary</h3>\n");
+      OutputStream out;
+      if (COMPRESSION_NONE.equals(compression))
+      {
+         // Never leave a stale sibling behind, it would be served instead of the report
+         gzipFile.delete();
+         out = openFile(file);
+      }
+      else if (COMPRESSION_GZIP.equals(compression))
+      {
+         out = new TeeOutputStream(openFile(file), new GZIPOutputStream(openFile(gzipFile), BUFFER_SIZE));
+      }
+      else if (COMPRESSION_GZIP_ONLY.equals(compression))
+      {
+         file.delete();
+         out = new GZIPOutputStream(openFile(gzipFile), BUFFER_SIZE);
+      }
+      else
+      {
+         throw new IllegalArgumentException("Unknown report compression " + compression);
+      }
+      return new BufferedWriter(new OutputStreamWriter(out, UTF_8), BUFFER_SIZE);
+   }
 
-      sb.append("<table width=\"100%\">\n");
+   private static OutputStream openFile(File file) throws IOException
+   {
+      return Channels.newOutputStream(FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+   }
 
-      sb.append("<tr style=\"background-color:#dddddd\">\n");
-      sb.append("  <th align=\"left\">Chapter</th>\n");
-      sb.append("  <th>Assertions</th>\n");
-      sb.append("  <th>Testable</th>\n");
-      sb.append("  <th>Total Tested</th>\n");
-      sb.append("  <th>Total Tests</th>\n");
-      sb.append("  <th>Tested<br /> (problematic)</th>\n");
-      sb.append("  <th>Tested<br /> (working)</th>\n");
-      sb.append("  <th>Coverage %</th>\n");
-      sb.append("</tr>\n");
+   /**
+    * Writes to two streams at once
+    */
+   private static class TeeOutputStream extends OutputStream
+   {
+      private final OutputStream first;
+      private final OutputStream second;
 
-      boolean odd = true;
+      TeeOutputStream(OutputStream first, OutputStream second)
+      {
+         this.first = first;
+         this.second = second;
+      }
+
+      @Override
+      public void write(int b) throws IOException
+      {
+         first.write(b);
+         second.write(b);
+      }
 
-      int totalAssertions = 0;
-      int totalTestable = 0;
-      int totalTested = 0;
-      int totalTests = 0;
-      int totalUnimplemented = 0;
-      int totalImplemented = 0;
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException
+      {
+         first.write(b, off, len);
+         second.write(b, off, len);
+      }
 
-      for (String sectionId : auditParser.getSectionIds())
+      @Override
+      public void flush() throws IOException
       {
+         first.flush();
+         second.flush();
+      }
 
-         // Chapters have no .'s in their id
-         if (sectionId.split("[.]").length == 1)
+      @Override
+      public void close() throws IOException
+      {
+         try
          {
-            String prefix = sectionId + ".";
+            first.close();
+         }
+         finally
+         {
+            second.close();
+         }
+      }
+   }
 
-            int assertions = auditParser.getAssertionsForSection(sectionId).size();
-            int testable = 0;
-            int testCount = 0;
-            int implemented = 0;
-            int unimplemented = 0;
+   private void copyResource(String filename, File targetDir) throws IOException
+   {
+      InputStream data = this.getClass().getClassLoader()
+            .getResourceAsStream("META-INF/" + filename);
+      File target = new File(targetDir, filename);
+      // Reports of several specs share these files, so never expose a partially written file
+      File tmp = File.createTempFile(filename, ".tmp", targetDir);
+      try
+      {
+         Files.copy(data, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+         Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      } finally
+      {
+         data.close();
+         tmp.delete();
+      }
+   }
 
-            for (AuditAssertion assertion : auditParser
-                  .getAssertionsForSection(sectionId))
+   /**
+    * Resolve the coverage of every assertion once. All parts of the report read the result.
+    *
+    * @return the coverage statistics
+    */
+   public CoverageStatistics getStatistics()
+   {
+      if (statistics == null)
+      {
+         statistics = new CoverageStatistics(auditParser);
+         for (String sectionId : auditParser.getSectionIds())
+         {
+            for (AuditAssertion assertion : auditParser.getAssertionsForSection(sectionId))
             {
-               if (assertion.isTestable())
-                  testable++;
-
-               TestStatus status = getStatus(getCoverageForAssertion(sectionId,
-                     assertion.getId()));
-               if (status.equals(TestStatus.COVERED))
-               {
-                  implemented++;
-               } else if (status.equals(TestStatus.UNIMPLEMENTED))
-               {
-                  unimplemented++;
-               }
+               List<SpecReference> coverage = getCoverageForAssertion(sectionId, assertion.getId());
+               statistics.record(assertion, coverage, getStatus(coverage));
             }
+         }
+         statistics.complete();
+      }
+      return statistics;
+   }
 
-            // Gather stats here
-            for (String subSectionId : auditParser.getSectionIds())
-            {
-               if (subSectionId.startsWith(prefix))
-               {
-                  assertions += auditParser.getAssertionsForSection(
-                        subSectionId).size();
+   private void calculateUnmatched()
+   {
+      unmatched = new ArrayList<SpecReference>();
 
-                  for (AuditAssertion assertion : auditParser
-                        .getAssertionsForSection(subSectionId))
-                  {
-                     if (assertion.isTestable())
-                        testable++;
-                     List<SpecReference> coverage = getCoverageForAssertion(
-                           subSectionId, assertion.getId());
-                     testCount += coverage.size();
-                     TestStatus status = getStatus(coverage);
-                     if (status.equals(TestStatus.COVERED))
-                     {
-                        implemented++;
-                     } else if (status.equals(TestStatus.UNIMPLEMENTED))
-                     {
-                        unimplemented++;
-                     }
-                  }
-               }
+      for (String sectionId : references.keySet())
+      {
+         for (SpecReference ref : references.get(sectionId))
+         {
+            if (!unversioned.contains(ref)
+                  && !auditParser.hasAssertion(ref.getSection(), ref
+                        .getAssertion()))
+            {
+               unmatched.add(ref);
             }
+         }
+      }
+   }
+
+   private void writeHeader(Writer out) throws IOException
+   {
+
+      out.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+      out.append("<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.1//EN\"\n");
+      out.append("\"http://www.w3.org/TR/xhtml11/DTD/xhtml11.dtd\">\n");
+      out.append("<html>\n");
+      out.append("<head><title>" + auditParser.getName() + " TCK Coverage Report</title>\n");
+
+      out.append("<style type=\"text/css\">\n");
+      out.append("  body {\n");
+      out.append("   font-family: verdana, arial, sans-serif;\n");
+      out.append("   font-size: 11px; }\n");
+      out.append("  .code {\n");
+      out.append("    float: left;\n");
+      out.append("    font-weight: bold;\n");
+      out.append("    width: 50px;\n");
+      out.append("    margin-top: 0px;\n");
+      out.append("    height: 100%; }\n");
+      out.append("   a.external, a.external:visited, a.external:hover {\n");
+      out.append("    color: #0000ff;\n");
+      out.append("    font-size: 9px;\n");
+      out.append("    font-style: normal;\n");
+      out.append("    padding-left: 2px;\n");
+      out.append("    margin-left: 6px;\n");
+      out.append("    margin-right: 6px;\n");
+      out.append("    padding-right: 2px; }\n");
+      out.append("  .results {\n");
+      out.append("    margin-left: 50px; }\n");
+      out.append("  .description {\n");
+      out.append("    margin-top: 2px;\n");
+      out.append("    margin-bottom: 2px; }\n");
+      out.append("  .sectionHeader {\n");
+      out.append("    border-bottom: 1px solid #cccccc;\n");
+      out.append("    margin-top: 8px;\n");
+      out.append("    font-weight: bold; }\n");
+      out.append("  .packageName {\n");
+      out.append("    color: #999999;\n");
+      out.append("    font-size: 9px;\n");
+      out.append("    font-weight: bold; }\n");
+      out.append("  .groupName {\n");
+      out.append("    color: #0000FF;\n");
+      out.append("    font-size: 12px;\n");
+      out.append("    font-weight: bold; }\n");
+      out.append("  .embeddedImage {\n");
+      out.append("    margin: 6px;\n");
+      out.append("    border: 1px solid black;\n");
+      out.append("    float: right; }\n");
+      out.append("  .coverage {\n");
+      out.append("    clear: both; }\n");
+      out.append("  .noCoverage {\n");
+      out.append("    margin-top: 2px;\n");
+      out.append("    margin-bottom: 2px;\n");
+      out.append("    font-weight: bold;\n");
+      out.append("    font-style: italic;\n");
+      out.append("    color: #ff0000; }\n");
+      out.append("  .coverageHeader {\n");
+      out.append("    font-weight: bold;\n");
+      out.append("    text-decoration: underline;\n");
+      out.append("    margin-top: 2px;\n");
+      out.append("    margin-bottom: 2px; }\n");
+      out.append("  .coverageMethod {\n");
+      out.append("    font-style: italic; }\n");
+      out.append("  .highlight {\n");
+      out.append("    background-color: #ffff00; }\n");
+      out.append("  .literal {\n");
+      out.append("   font-family: courier new; }\n");
+      out.append("  .implied {\n");
+      out.append("    color: #fff;\n");
+      out.append("    font-weight: bold;\n");
+      out.append("    background-color: #000; }\n");
+      out.append("  .group {\n");
+      out.append("    border-top: 1px solid #000000;\n");
+      out.append("    border-bottom: 1px solid #000000;\n");
+      out.append("    padding-bottom: 1px;\n");
+      out.append("    margin-bottom: 2px;\n");
+      out.append("    min-height: 36px;\n");
+      out.append("    background-color: " + COLOUR_SHADE_LIGHT_GREY + "; }\n");
+      out.append("  .groupAssertions {\n");
+      out.append("    padding-bottom: 1px;\n");
+      out.append("    margin-top: 8px;\n");
+      out.append("    margin-left: 50px;\n");
+      out.append("    margin-bottom: 2px;\n");
+      out.append("    min-height: 36px; \n");
+      out.append("    background-color: ffffff; }\n");
+      out.append("  .pass {\n");
+      out.append("    border-top: 1px solid #488c41;\n");
+      out.append("    border-bottom: 1px solid #488c41;\n");
+      out.append("    padding-bottom: 1px;\n");
+      out.append("    margin-bottom: 2px;\n");
+      out.append("    min-height: 36px;\n");
+      out.append("    background-color: " + COLOUR_SHADE_GREEN + "; }\n");
+      out.append("  .fail {\n");
+      out.append("    border-top: 1px solid #ab2020;\n");
+      out.append("    border-bottom: 1px solid #ab2020;\n");
+      out.append("    padding-bottom: 1px;\n");
+      out.append("    margin-bottom: 2px;\n");
+      out.append("    min-height: 36px;\n");
+      out.append("    background-color: " + COLOUR_SHADE_RED + "; }\n");
+      out.append("  .skip {\n");
+      out.append("    border-top: 1px solid #ff9900;\n");
+      out.append("    border-bottom: 1px solid #ff9900;\n");
+      out.append("    padding-bottom: 1px;\n");
+      out.append("    margin-bottom: 2px;\n");
+      out.append("    min-height: 36px;\n");
+      out.append("    background-color: " + COLOUR_SHADE_ORANGE + "; }\n");
+      out.append("  .untestable {\n");
+      out.append("    padding-bottom: 16px;\n");
+      out.append("    margin-bottom: 2px;\n");
+      out.append("    border-top: 1px solid #317ba6;\n");
+      out.append("    border-bottom: 1px solid #317ba6;\n");
+      out.append("    min-height: 36px;\n");
+      out.append("    background-color: " + COLOUR_SHADE_BLUE + "; }\n");
+      out.append("  .stickynote {\n");
+      // sb
+      //      .append("    background: url(http://www.seamframework.org/service/File/94243) left top no-repeat;\n");
+      out.append("    position: absolute;\n");
+      out.append("    left: 16px;\n");
+      // out.append("    width: 20px;\n");
+      // out.append("    height: 20px;\n");
+      out.append("    margin-top: 2em; }\n");
+      out.append("</style>\n");
+
+      out.append("</head><body>");
+      out.append("<h1>" + auditParser.getName() + " TCK Coverage</h1>");
+      out.append("<h2>");
+      out.append(auditParser.getVersion());
+      out.append("</h2>\n");
+
+   }
+
+   private void writeContents(Writer out) throws IOException
+   {
+
+      out.append("<h3>Contents</h3>\n");
+      out.append("<div><a href=\"#chapterSummary\">Chapter Summary</a></div>\n");
+      out.append("<div><a href=\"#sectionSummary\">Section Summary</a></div>\n");
+      out.append("<div><a href=\"#coverageDetail\">Coverage Detail</a></div>\n");
+      out.append("<div><a href=\"#unmatched\">Unmatched Tests</a></div>\n");
+      out.append("<div><a href=\"#unversioned\">Unversioned Tests</a></div>\n");
+      out.append("<div><a href=\"#groupsummary\">Test Group Summary</a></div>\n");
+
+   }
+
+   private void writeTestCoverageDistribution(Writer out) throws IOException
+   {
+      out.append("<h3 id=\"coverageDistribution\">Coverage Distribution</h3>\n");
+
+      SeriesGenerator gen = new SeriesGenerator();
+
+      for (String sectionId : auditParser.getSectionIds())
+      {
+         gen.addValue(statistics.getSectionCounters(sectionId).getCoveragePercent());
+      }
+
+      out.append(new BarChartGenerator(COLOUR_GRAPH_GRADIENT_FROM,
+            COLOUR_GRAPH_GRADIENT_TO, gen.getSeries(10, 10)).generate());
+
+   }
+
+   private void writeChapterSummary(Writer out) throws IOException
+   {
 
-            int tested = implemented + unimplemented;
+      out.append("<h3 id=\"chapterSummary\">Chapter Summary</h3>\n");
 
-            double coveragePercent = testable > 0 ? ((implemented * 1.0) / testable) * 100
-                  : -1;
+      out.append("<table width=\"100%\">\n");
 
-            totalAssertions += assertions;
-            totalTestable += testable;
-            totalImplemented += implemented;
-            totalTested += tested;
-            totalTests += testCount;
-            totalUnimplemented += unimplemented;
+      out.append("<tr style=\"background-color:#dddddd\">\n");
+      out.append("  <th align=\"left\">Chapter</th>\n");
+      out.append("  <th>Assertions</th>\n");
+      out.append("  <th>Testable</th>\n");
+      out.append("  <th>Total Tested</th>\n");
+      out.append("  <th>Total Tests</th>\n");
+      out.append("  <th>Tested<br /> (problematic)</th>\n");
+      out.append("  <th>Tested<br /> (working)</th>\n");
+      out.append("  <th>Coverage %</th>\n");
+      if (history != null)
+      {
+         out.append("  <th>Trend</th>\n");
+      }
+      out.append("</tr>\n");
 
-            if (odd)
-            {
-               sb.append("<tr style=\"background-color:#f7f7f7\">");
-            } else
-            {
-               sb.append("<tr>");
-            }
+      boolean odd = true;
 
-            odd = !odd;
+      for (String sectionId : statistics.getChapterIds())
+      {
+         CoverageStatistics.Counters counters = statistics.getChapterCounters(sectionId);
+         double coveragePercent = counters.getCoveragePercent();
 
-            int margin = (sectionId.split("[.]").length - 1) * 16;
+         if (odd)
+         {
+            out.append("<tr style=\"background-color:#f7f7f7\">");
+         } else
+         {
+            out.append("<tr>");
+         }
 
-            sb.append("<td style=\"padding-left:" + margin + "px\">");
-            sb.append("<a href=\"#" + sectionId + "\">");
-            sb.append(sectionId);
-            sb.append(" ");
-            sb.append(auditParser.getSectionTitle(sectionId));
-            sb.append("</a>");
-            sb.append("</td>");
+         odd = !odd;
 
-            sb.append("<td align=\"center\">");
-            sb.append(assertions);
-            sb.append("</td>");
+         int margin = (auditParser.getSectionTree().getDepth(sectionId) - 1) * 16;
 
-            sb.append("<td align=\"center\">");
-            sb.append(testable);
-            sb.append("</td>");
+         out.append("<td style=\"padding-left:" + margin + "px\">");
+         out.append("<a href=\"" + linkTo(sectionId) + "\">");
+         out.append(sectionId);
+         out.append(" ");
+         out.append(auditParser.getSectionTitle(sectionId));
+         out.append("</a>");
+         out.append("</td>");
 
-            sb.append("<td align=\"center\">");
-            sb.append(tested);
-            sb.append("</td>");
+         out.append("<td align=\"center\">");
+         out.append(String.valueOf(counters.getAssertions()));
+         out.append("</td>");
 
-            sb.append("<td align=\"center\">");
-            sb.append(testCount);
-            sb.append("</td>");
+         out.append("<td align=\"center\">");
+         out.append(String.valueOf(counters.getTestable()));
+         out.append("</td>");
 
-            sb.append("<td align=\"center\">");
-            sb.append(unimplemented);
-            sb.append("</td>");
+         out.append("<td align=\"center\">");
+         out.append(String.valueOf(counters.getTested()));
+         out.append("</td>");
 
-            sb.append("<td align=\"center\">");
-            sb.append(implemented);
-            sb.append("</td>");
+         out.append("<td align=\"center\">");
+         out.append(String.valueOf(counters.getTestCount()));
+         out.append("</td>");
 
-            if (coveragePercent >= 0)
-            {
-               String bgColor = coveragePercent < failThreshold ? "#ffaaaa"
-                     : coveragePercent < passThreshold ? "#ffffaa"
-                           : coveragePercent > 100 ? "#FF00CC" : "#aaffaa";
-
-               sb.append("<td align=\"center\" style=\"background-color:"
-                     + bgColor + "\">");
-               sb.append(String.format("%.2f%%", coveragePercent));
-               sb.append("</td>");
-            } else
-            {
-               sb.append("<td />");
-            }
+         out.append("<td align=\"center\">");
+         out.append(String.valueOf(counters.getUnimplemented()));
+         out.append("</td>");
 
-            sb.append("</tr>");
+         out.append("<td align=\"center\">");
+         out.append(String.valueOf(counters.getImplemented()));
+         out.append("</td>");
 
+         if (coveragePercent >= 0)
+         {
+            String bgColor = coveragePercent < failThreshold ? "#ffaaaa"
+                  : coveragePercent < passThreshold ? "#ffffaa"
+                        : coveragePercent > 100 ? "#FF00CC" : "#aaffaa";
+
+            out.append("<td align=\"center\" style=\"background-color:"
+                  + bgColor + "\">");
+            out.append(String.format("%.2f%%", coveragePercent));
+            out.append("</td>");
+         } else
+         {
+            out.append("<td />");
+         }
+
+         if (history != null)
+         {
+            writeTrend(out, sectionId);
          }
 
+         out.append("</tr>");
       }
 
-      sb.append("<tr style=\"font-weight: bold;background-color:#dddddd\">");
+      CoverageStatistics.Counters total = statistics.getTotalCounters();
 
-      sb.append("<td>");
-      sb.append("Total");
-      sb.append("</td>");
+      out.append("<tr style=\"font-weight: bold;background-color:#dddddd\">");
 
-      sb.append("<td align=\"center\">");
-      sb.append(totalAssertions);
-      sb.append("</td>");
+      out.append("<td>");
+      out.append("Total");
+      out.append("</td>");
 
-      sb.append("<td align=\"center\">");
-      sb.append(totalTestable);
-      sb.append("</td>");
+      out.append("<td align=\"center\">");
+      out.append(String.valueOf(total.getAssertions()));
+      out.append("</td>");
 
-      sb.append("<td align=\"center\">");
-      sb.append(totalTested);
-      sb.append("</td>");
+      out.append("<td align=\"center\">");
+      out.append(String.valueOf(total.getTestable()));
+      out.append("</td>");
 
-      sb.append("<td align=\"center\">");
-      sb.append(totalTests);
-      sb.append("</td>");
+      out.append("<td align=\"center\">");
+      out.append(String.valueOf(total.getTested()));
+      out.append("</td>");
 
-      sb.append("<td align=\"center\">");
-      sb.append(totalUnimplemented);
-      sb.append("</td>");
+      out.append("<td align=\"center\">");
+      out.append(String.valueOf(total.getTestCount()));
+      out.append("</td>");
 
-      sb.append("<td align=\"center\">");
-      sb.append(totalImplemented);
-      sb.append("</td>");
+      out.append("<td align=\"center\">");
+      out.append(String.valueOf(total.getUnimplemented()));
+      out.append("</td>");
 
-      double totalCoveragePercent = totalTestable > 0 ? ((totalImplemented * 1.0) / totalTestable) * 100
-            : -1;
+      out.append("<td align=\"center\">");
+      out.append(String.valueOf(total.getImplemented()));
+      out.append("</td>");
+
+      double totalCoveragePercent = total.getCoveragePercent();
 
       if (totalCoveragePercent >= 0)
       {
          String bgColor = totalCoveragePercent < failThreshold ? "#ffaaaa"
                : totalCoveragePercent < passThreshold ? "#ffffaa" : "#aaffaa";
 
-         sb.append("<td align=\"center\" style=\"background-color:" + bgColor
+         out.append("<td align=\"center\" style=\"background-color:" + bgColor
                + "\">");
-         sb.append(String.format("%.2f%%", totalCoveragePercent));
-         sb.append("</td>");
+         out.append(String.format("%.2f%%", totalCoveragePercent));
+         out.append("</td>");
       } else
       {
-         sb.append("<td />");
+         out.append("<td />");
+      }
+
+      if (history != null)
+      {
+         writeTrend(out, null);
       }
 
-      sb.append("</tr>");
+      out.append("</tr>");
 
-      sb.append("</table>");
-      out.write(sb.toString().getBytes());
+      out.append("</table>");
    }
 
-   private void writeSectionSummary(OutputStream out) throws IOException
+   /**
+    * Write a sparkline of the coverage of the chapter, or of the total if the chapter is null, in the reports of
+    * the history. Reports without the chapter or without testable assertions in it are left out.
+    */
+   private void writeTrend(Writer out, String chapterId) throws IOException
+   {
+      StringBuilder points = new StringBuilder();
+      int count = 0;
+      double step = history.size() > 1 ? (double) SPARKLINE_WIDTH / (history.size() - 1) : 0;
+      for (int i = 0; i < history.size(); i++)
+      {
+         CoverageHistory.Record record = history.get(i);
+         CoverageStatistics.Counters counters = chapterId == null ? record.getTotal() : record.getChapter(chapterId);
+         if (counters == null || counters.getCoveragePercent() < 0)
+         {
+            continue;
+         }
+         double coverage = Math.min(counters.getCoveragePercent(), 100);
+         points.append(String.format(Locale.ENGLISH, "%.1f,%.1f ", i * step,
+               (SPARKLINE_HEIGHT - 1) - coverage * (SPARKLINE_HEIGHT - 2) / 100));
+         count++;
+      }
+
+      if (count < 2)
+      {
+         out.append("<td />");
+         return;
+      }
+      out.append("<td align=\"center\"><svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + SPARKLINE_WIDTH
+            + "\" height=\"" + SPARKLINE_HEIGHT + "\">");
+      out.append("<polyline fill=\"none\" stroke=\"#317ba6\" stroke-width=\"1\" points=\"" + points.toString().trim()
+            + "\"/></svg></td>");
+   }
+
+   private void writeSectionSummary(Writer out) throws IOException
    {
-      StringBuilder sb = new StringBuilder();
 
-      sb.append("<h3 id=\"sectionSummary\">Section Summary</h3>\n");
+      out.append("<h3 id=\"sectionSummary\">Section Summary</h3>\n");
 
-      sb.append("<table width=\"100%\">");
+      out.append("<table width=\"100%\">");
 
-      sb.append("<tr style=\"background-color:#dddddd\">");
-      sb.append("<th align=\"left\">Section</th>");
-      sb.append("<th>Assertions</th>");
-      sb.append("<th>Testable</th>");
-      sb.append("<th>Total Tested</th>");
-      sb.append("<th>Tested<br /> (problematic)</th>");
-      sb.append("<th>Tested<br /> (working)</th>");
-      sb.append("<th>Coverage %</th>");
-      sb.append("</tr>");
+      out.append("<tr style=\"background-color:#dddddd\">");
+      out.append("<th align=\"left\">Section</th>");
+      out.append("<th>Assertions</th>");
+      out.append("<th>Testable</th>");
+      out.append("<th>Total Tested</th>");
+      out.append("<th>Tested<br /> (problematic)</th>");
+      out.append("<th>Tested<br /> (working)</th>");
+      out.append("<th>Coverage %</th>");
+      out.append("</tr>");
 
       boolean odd = true;
 
@@ -703,73 +1279,49 @@ public class CoverageReport
 
          if (odd)
          {
-            sb.append("<tr style=\"background-color:#f7f7f7\">");
+            out.append("<tr style=\"background-color:#f7f7f7\">");
          } else
          {
-            sb.append("<tr>");
+            out.append("<tr>");
          }
 
          odd = !odd;
 
-         int margin = (sectionId.split("[.]").length - 1) * 16;
+         int margin = (auditParser.getSectionTree().getDepth(sectionId) - 1) * 16;
 
-         sb.append("<td style=\"padding-left:" + margin + "px\">");
-         sb.append("<a href=\"#" + sectionId + "\">");
-         sb.append(sectionId);
-         sb.append(" ");
-         sb.append(auditParser.getSectionTitle(sectionId));
-         sb.append("</a>");
+         out.append("<td style=\"padding-left:" + margin + "px\">");
+         out.append("<a href=\"" + linkTo(sectionId) + "\">");
+         out.append(sectionId);
+         out.append(" ");
+         out.append(auditParser.getSectionTitle(sectionId));
+         out.append("</a>");
          if(auditParser.hasSectionIdsGenerated()) {
-        	 sb.append(" <sup>["+auditParser.getSectionOriginalId(sectionId)+"]</sup>");
-         }
-         sb.append("</td>");
-
-         int assertions = auditParser.getAssertionsForSection(sectionId).size();
-         int testable = 0;
-         int implemented = 0;
-         int unimplemented = 0;
-
-         for (AuditAssertion assertion : auditParser
-               .getAssertionsForSection(sectionId))
-         {
-            if (assertion.isTestable())
-               testable++;
-
-            TestStatus status = getStatus(getCoverageForAssertion(sectionId,
-                  assertion.getId()));
-            if (status.equals(TestStatus.COVERED))
-            {
-               implemented++;
-            } else if (status.equals(TestStatus.UNIMPLEMENTED))
-            {
-               unimplemented++;
-            }
+        	 out.append(" <sup>["+auditParser.getSectionOriginalId(sectionId)+"]</sup>");
          }
+         out.append("</td>");
 
-         int tested = implemented + unimplemented;
-
-         double coveragePercent = testable > 0 ? ((implemented * 1.0) / testable) * 100
-               : -1;
+         CoverageStatistics.Counters counters = statistics.getSectionCounters(sectionId);
+         double coveragePercent = counters.getCoveragePercent();
 
-         sb.append("<td align=\"center\">");
-         sb.append(assertions);
-         sb.append("</td>");
+         out.append("<td align=\"center\">");
+         out.append(String.valueOf(counters.getAssertions()));
+         out.append("</td>");
 
-         sb.append("<td align=\"center\">");
-         sb.append(testable);
-         sb.append("</td>");
+         out.append("<td align=\"center\">");
+         out.append(String.valueOf(counters.getTestable()));
+         out.append("</td>");
 
-         sb.append("<td align=\"center\">");
-         sb.append(tested);
-         sb.append("</td>");
+         out.append("<td align=\"center\">");
+         out.append(String.valueOf(counters.getTested()));
+         out.append("</td>");
 
-         sb.append("<td align=\"center\">");
-         sb.append(unimplemented);
-         sb.append("</td>");
+         out.append("<td align=\"center\">");
+         out.append(String.valueOf(counters.getUnimplemented()));
+         out.append("</td>");
 
-         sb.append("<td align=\"center\">");
-         sb.append(implemented);
-         sb.append("</td>");
+         out.append("<td align=\"center\">");
+         out.append(String.valueOf(counters.getImplemented()));
+         out.append("</td>");
 
          if (coveragePercent >= 0)
          {
@@ -777,207 +1329,404 @@ public class CoverageReport
                   : coveragePercent < passThreshold ? "#ffffaa"
                         : coveragePercent > 100 ? "#FF00CC" : "#aaffaa";
 
-            sb.append("<td align=\"center\" style=\"background-color:"
+            out.append("<td align=\"center\" style=\"background-color:"
                   + bgColor + "\">");
-            sb.append(String.format("%.2f%%", coveragePercent));
-            sb.append("</td>");
+            out.append(String.format("%.2f%%", coveragePercent));
+            out.append("</td>");
          } else
          {
-            sb.append("<td />");
+            out.append("<td />");
          }
 
-         sb.append("</tr>");
+         out.append("</tr>");
+      }
+
+      out.append("</table>");
+   }
+
+   private void writeChapterPageIndex(Writer out) throws IOException
+   {
+      out.append("<h3 id=\"coverageDetail\">Coverage Detail</h3>\n");
+
+      for (Map.Entry<String, List<String>> page : chapterPages.entrySet())
+      {
+         String sectionId = page.getValue().get(0);
+         out.append("<div><a href=\"" + page.getKey() + "\">");
+         out.append(sectionId);
+         out.append(" ");
+         out.append(auditParser.getSectionTitle(sectionId));
+         out.append("</a></div>\n");
       }
+   }
+
+   private void writeCoverage(Writer out) throws IOException
+   {
+      writeCoverage(out, auditParser.getSectionIds());
+   }
+
+   private void writeCoverage(Writer out, List<String> sectionIds) throws IOException
+   {
+
+      out.write("<h3 id=\"coverageDetail\">Coverage Detail</h3>\n");
 
-      sb.append("</table>");
-      out.write(sb.toString().getBytes());
+      writeColourKey(out);
+
+      int parallelism = properties.getIntValue(PropertyKeys.REPORT_RENDERING_PARALLELISM, 1, false);
+      if (parallelism <= 1)
+      {
+         for (String sectionId : sectionIds)
+         {
+            writeSection(out, sectionId);
+         }
+      }
+      else
+      {
+         writeSectionsInParallel(out, sectionIds, parallelism);
+      }
    }
 
-   private void writeCoverage(OutputStream out) throws IOException
+   private void writeCoveragePlaceholders(Writer out) throws IOException
    {
+      out.write("<h3 id=\"coverageDetail\">Coverage Detail</h3>\n");
 
-      out.write("<h3 id=\"coverageDetail\">Coverage Detail</h3>\n".getBytes());
+      writeColourKey(out);
+
+      // The index of each placeholder is the index of its section in the coverage data
+      int index = 0;
+      for (String sectionId : auditParser.getSectionIds())
+      {
+         if (auditParser.getItemsForSection(sectionId).isEmpty())
+         {
+            out.write("<div style=\"visibility:hidden\" id=\"" + sectionId + "\"></div>\n");
+         }
+         else
+         {
+            out.write("<div class=\"lazySection\" id=\"" + sectionId + "\" data-section=\"" + index++
+                  + "\" data-assertions=\"" + auditParser.getAssertionsForSection(sectionId).size() + "\"></div>\n");
+         }
+      }
+   }
 
-      StringBuilder key = new StringBuilder();
-      key.append("<table>\n");
-      key
+   private void writeColourKey(Writer out) throws IOException
+   {
+      out.append("<table>\n");
+      out
             .append("  <tr><th style=\"background-color:#dddddd\">Colour Key</th></tr>\n");
-      key.append("  <tr><td style=\"background-color:" + COLOUR_SHADE_GREEN
+      out.append("  <tr><td style=\"background-color:" + COLOUR_SHADE_GREEN
             + ";text-align:center\">Assertion is covered</td></tr>\n");
-      key.append("  <tr><td style=\"background-color:" + COLOUR_SHADE_RED
+      out.append("  <tr><td style=\"background-color:" + COLOUR_SHADE_RED
             + ";text-align:center\">Assertion is not covered</td></tr>\n");
-      key.append("  <tr><td style=\"background-color:" + COLOUR_SHADE_ORANGE
+      out.append("  <tr><td style=\"background-color:" + COLOUR_SHADE_ORANGE
             + ";text-align:center\">Assertion test is unimplemented</td></tr>\n");
-      key.append("  <tr><td style=\"background-color:" + COLOUR_SHADE_BLUE
+      out.append("  <tr><td style=\"background-color:" + COLOUR_SHADE_BLUE
             + ";text-align:center\">Assertion is untestable</td></tr>\n");
-      key.append("</table>\n");
-      out.write(key.toString().getBytes());
+      out.append("</table>\n");
+   }
 
-      for (String sectionId : auditParser.getSectionIds())
+   /**
+    * Render the sections on a fork-join pool into one buffer per section. The sections are
+    * rendered in windows, which are written in report order before the next window is rendered,
+    * so that only a window of sections is buffered at a time.
+    */
+   private void writeSectionsInParallel(Writer out, List<String> sectionIds, int parallelism) throws IOException
+   {
+      int window = parallelism * SECTIONS_PER_THREAD_AND_WINDOW;
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try
+      {
+         for (int from = 0; from < sectionIds.size(); from += window)
+         {
+            List<String> windowIds = sectionIds.subList(from, Math.min(from + window, sectionIds.size()));
+            String[] buffers = new String[windowIds.size()];
+            try
+            {
+               pool.invoke(new RenderSections(windowIds, buffers, 0, buffers.length));
+            }
+            catch (UncheckedIOException e)
+            {
+               throw e.getCause();
+            }
+            for (String buffer : buffers)
+            {
+               out.write(buffer);
+            }
+         }
+      }
+      finally
       {
-         List<SectionItem> items = auditParser.getItemsForSection(sectionId);
+         pool.shutdown();
+      }
+   }
+
+   private class RenderSections extends RecursiveAction
+   {
+      private static final long serialVersionUID = 1L;
 
+      private final List<String> sectionIds;
+      private final String[] buffers;
+      private final int from;
+      private final int to;
 
-         //List<AuditAssertion> sectionAssertions = auditParser
-               ///getAssertionsForSection(sectionId);
+      RenderSections(List<String> sectionIds, String[] buffers, int from, int to)
+      {
+         this.sectionIds = sectionIds;
+         this.buffers = buffers;
+         this.from = from;
+         this.to = to;
+      }
 
-         if (items != null && !items.isEmpty())
+      @Override
+      protected void compute()
+      {
+         if (to - from > 1)
+         {
+            int middle = (from + to) >>> 1;
+            invokeAll(new RenderSections(sectionIds, buffers, from, middle),
+                  new RenderSections(sectionIds, buffers, middle, to));
+            return;
+         }
+         StringWriter buffer = new StringWriter();
+         try
          {
-            StringBuilder sb = new StringBuilder();
+            writeSection(buffer, sectionIds.get(from));
+         }
+         catch (IOException e)
+         {
+            throw new UncheckedIOException(e);
+         }
+         buffers[from] = buffer.toString();
+      }
+   }
+
+   /**
+    * Write the section, from the fragment cache if the section and its coverage are unchanged since it was cached
+    */
+   private void writeSection(Writer out, String sectionId) throws IOException
+   {
+      if (fragmentCache == null || auditParser.getItemsForSection(sectionId).isEmpty())
+      {
+         renderSection(out, sectionId);
+         return;
+      }
 
-            StringBuilder originalSectionIdInfo = new StringBuilder();
-            if (auditParser.hasSectionIdsGenerated())
+      String key = getFragmentKey(sectionId);
+      String fragment = fragmentCache.load(key);
+      if (fragment == null)
+      {
+         StringWriter buffer = new StringWriter();
+         renderSection(buffer, sectionId);
+         fragment = buffer.toString();
+         try
+         {
+            fragmentCache.store(key, fragment);
+         }
+         catch (IOException e)
+         {
+            System.err.println("[" + auditParser.getSpecId() + "] Unable to write report fragment cache - "
+                  + e.getMessage());
+         }
+      }
+      else
+      {
+         // The images and test archives of a cached section are still part of the report
+         for (AuditAssertion assertion : auditParser.getAssertionsForSection(sectionId))
+         {
+            String imageFilename = assertion.getSection() + "." + assertion.getId() + ".png";
+            if (imageCopier.exists(imageFilename))
             {
-               String originalSectionId = auditParser.getSectionOriginalId(sectionId);
-               originalSectionIdInfo.append(" <sup>[");
-               if (specificationBaseUrl != null)
-               {
-                  originalSectionIdInfo.append("<a href=\"").append(specificationBaseUrl).append("#").append(originalSectionId).append("\">");
-               }
-               originalSectionIdInfo.append(originalSectionId);
-               if (specificationBaseUrl != null)
-               {
-                  originalSectionIdInfo.append("</a>");
-               }
-               originalSectionIdInfo.append("]</sup>");
+               imageCopier.copy(imageFilename);
             }
-
-            // wrap each section to div element to create some "relation" between assertions and given section.
-            out.write(("<div id = \"" + auditParser.getSectionTitle(sectionId) + "\">").getBytes());
-
-            out.write(("<h4 class=\"sectionHeader\" id=\"" + sectionId
-                  + "\">Section " + sectionId + " - "
-                  + escape(auditParser.getSectionTitle(sectionId)) + originalSectionIdInfo + "</h4>\n")
-                  .getBytes());
-
-            for (SectionItem item : items)
+            CoverageStatistics.AssertionCoverage coverage = statistics.getCoverage(assertion);
+            if (assertion.isTestable() && !coverage.getStatus().equals(TestStatus.UNCOVERED))
             {
-               if (item instanceof AssertionGroup)
+               for (SpecReference ref : coverage.getReferences())
                {
-                  appendAssertionGroup(sb, (AssertionGroup) item);
-               }
-               else if (item instanceof AuditAssertion)
-               {
-                  appendAssertion(sb, (AuditAssertion) item);
+                  archiveNames.get(ref.getPackageName() + "." + ref.getClassName());
                }
             }
-
-            out.write(sb.toString().getBytes());
-
-            out.write(("</div>").getBytes());
-         } else
-         {
-            // We still want to be able to jump to this section by clicking on
-            // the links
-            // in the chapter and section summaries
-            out.write(("<div style=\"visibility:hidden\" id=\"" + sectionId + "\"></div>\n")
-                        .getBytes());
          }
       }
+      out.write(fragment);
    }
 
-   private void appendAssertionGroup(StringBuilder sb, AssertionGroup group) throws IOException
+   /**
+    * @return the hash of everything a section is rendered from, except for the configuration
+    */
+   private String getFragmentKey(String sectionId)
    {
-      sb.append("  <div class=\"group\">\n");
-      sb.append("    <p class=\"description\">");
-      if (group.getText() == null)
+      SectionFragmentCache.Key key = fragmentCache.newKey();
+      key.add(sectionId);
+      key.add(auditParser.getSectionTitle(sectionId));
+      key.add(auditParser.hasSectionIdsGenerated() ? auditParser.getSectionOriginalId(sectionId) : null);
+      for (SectionItem item : auditParser.getItemsForSection(sectionId))
       {
-         throw new IllegalStateException("Group text should not be null " + group);
+         if (item instanceof AssertionGroup)
+         {
+            AssertionGroup group = (AssertionGroup) item;
+            key.add(true).add(group.getText()).addInt(group.getAssertions().size());
+            for (AuditAssertion assertion : group.getAssertions())
+            {
+               addFragmentKey(key, assertion);
+            }
+         }
+         else if (item instanceof AuditAssertion)
+         {
+            addFragmentKey(key, (AuditAssertion) item);
+         }
       }
-      String text = parseStrikethrough(parseBold(parseLiteral(escape(group.getText()))));
-      sb.append(text);
-      sb.append("</p>\n");
+      return key.finish();
+   }
 
-      sb.append("    <div class=\"groupAssertions\">\n");
-      for (AuditAssertion assertion : group.getAssertions())
+   private void addFragmentKey(SectionFragmentCache.Key key, AuditAssertion assertion)
+   {
+      CoverageStatistics.AssertionCoverage coverage = statistics.getCoverage(assertion);
+      key.add(false).add(assertion.getId()).add(assertion.getText()).add(assertion.getNote());
+      key.add(assertion.isTestable()).add(assertion.isImplied()).add(coverage.getStatus().name());
+      key.add(imageCopier.exists(assertion.getSection() + "." + assertion.getId() + ".png"));
+      key.addInt(coverage.getReferences().size());
+      for (SpecReference ref : coverage.getReferences())
       {
-         appendAssertion(sb, assertion);
+         key.add(ref.getPackageName()).add(ref.getClassName()).add(ref.getMethodName());
       }
-      sb.append("    </div>\n");
-
-      sb.append("  </div>\n");
    }
 
-   private void appendAssertion(StringBuilder sb, AuditAssertion assertion) throws IOException
+   /**
+    * @return the hash of the configuration which all sections are rendered with
+    */
+   private byte[] getFragmentSalt()
    {
-      List<SpecReference> coverage = getCoverageForAssertion(
-            assertion.getSection(), assertion.getId());
-      TestStatus status = getStatus(coverage);
+      return new SectionFragmentCache.Key().addInt(FRAGMENT_FORMAT_VERSION).add(specificationBaseUrl)
+            .add(fisheyeBaseUrl).add(svnBaseUrl).add(githubBaseUrl).finishBytes();
+   }
 
-      String divClass = null;
+   private void renderSection(Writer out, String sectionId) throws IOException
+   {
+      List<SectionItem> items = auditParser.getItemsForSection(sectionId);
 
-      if (assertion.isTestable())
+      if (items != null && !items.isEmpty())
       {
-         if (status.equals(TestStatus.UNCOVERED))
-         {
-            divClass = "fail";
-         }
-         else if (status.equals(TestStatus.UNIMPLEMENTED))
+         StringBuilder originalSectionIdInfo = new StringBuilder();
+         if (auditParser.hasSectionIdsGenerated())
          {
-            divClass = "skip";
+            String originalSectionId = auditParser.getSectionOriginalId(sectionId);
+            originalSectionIdInfo.append(" <sup>[");
+            if (specificationBaseUrl != null)
+            {
+               originalSectionIdInfo.append("<a href=\"").append(specificationBaseUrl).append("#").append(originalSectionId).append("\">");
+            }
+            originalSectionIdInfo.append(originalSectionId);
+            if (specificationBaseUrl != null)
+            {
+               originalSectionIdInfo.append("</a>");
+            }
+            originalSectionIdInfo.append("]</sup>");
          }
-         else
+
+         // wrap each section to div element to create some "relation" between assertions and given section.
+         out.write("<div id = \"" + auditParser.getSectionTitle(sectionId) + "\">");
+
+         out.write("<h4 class=\"sectionHeader\" id=\"" + sectionId
+               + "\">Section " + sectionId + " - "
+               + MarkupRenderer.escape(auditParser.getSectionTitle(sectionId)) + originalSectionIdInfo + "</h4>\n");
+
+         for (SectionItem item : items)
          {
-            divClass = "pass";
+            if (item instanceof AssertionGroup)
+            {
+               appendAssertionGroup(out, (AssertionGroup) item);
+            }
+            else if (item instanceof AuditAssertion)
+            {
+               appendAssertion(out, (AuditAssertion) item);
+            }
          }
+
+         out.write("</div>");
+      } else
+      {
+         // We still want to be able to jump to this section by clicking on
+         // the links
+         // in the chapter and section summaries
+         out.write("<div style=\"visibility:hidden\" id=\"" + sectionId + "\"></div>\n");
       }
-      else
+   }
+
+   private void appendAssertionGroup(Writer out, AssertionGroup group) throws IOException
+   {
+      out.append("  <div class=\"group\">\n");
+      out.append("    <p class=\"description\">");
+      if (group.getText() == null)
+      {
+         throw new IllegalStateException("Group text should not be null " + group);
+      }
+      MarkupRenderer.render(group.getText(), out);
+      out.append("</p>\n");
+
+      out.append("    <div class=\"groupAssertions\">\n");
+      for (AuditAssertion assertion : group.getAssertions())
       {
-         divClass = "untestable";
+         appendAssertion(out, assertion);
       }
+      out.append("    </div>\n");
+
+      out.append("  </div>\n");
+   }
+
+   private void appendAssertion(Writer out, AuditAssertion assertion) throws IOException
+   {
+      CoverageStatistics.AssertionCoverage assertionCoverage = statistics.getCoverage(assertion);
+      List<SpecReference> coverage = assertionCoverage.getReferences();
+      TestStatus status = assertionCoverage.getStatus();
 
-      sb.append("  <div class=\"" + divClass + "\">\n");
+      out.append("  <div class=\"" + getStatusClass(assertion, status) + "\">\n");
 
       if (assertion.isImplied())
       {
-         sb.append("<span class=\"implied\">The following assertion is not made explicitly by the spec, however it is implied</span>");
+         out.append("<span class=\"implied\">The following assertion is not made explicitly by the spec, however it is implied</span>");
       }
 
-      sb.append("    <span class=\"code\">");
-      sb.append(assertion.getId());
-      sb.append(")");
+      out.append("    <span class=\"code\">");
+      out.append(assertion.getId());
+      out.append(")");
 
       if (!Strings.isEmpty(assertion.getNote()))
       {
-         // sb.append("<img title=\"" + assertion.getNote()
+         // out.append("<img title=\"" + assertion.getNote()
          //      + "\" src=\"http://www.seamframework.org/service/File/94244\" class=\"stickynote\"/>");
-    	  sb.append("<img title=\"" + assertion.getNote() + "\" alt=\"" + assertion.getNote() + "\" src=\"images/stickynote.png\" class=\"stickynote\" width=\"20\" height=\"20\"/>");
+    	  out.append("<img title=\"" + assertion.getNote() + "\" alt=\"" + assertion.getNote() + "\" src=\"images/stickynote.png\" class=\"stickynote\" width=\"20\" height=\"20\"/>");
       }
 
-      sb.append("</span>\n");
-      sb.append("    <div class=\"results\">");
+      out.append("</span>\n");
+      out.append("    <div class=\"results\">");
 
-      sb.append("<p class=\"description\">");
+      out.append("<p class=\"description\">");
       String imageFilename = assertion.getSection() + "." + assertion.getId()
             + ".png";
-      File imageFile = new File(imageSrcDir, imageFilename);
 
-      if (imageFile.exists())
+      if (imageCopier.exists(imageFilename))
       {
-         sb.append("<img src=\"images/" + imageFile.getName()
+         out.append("<img src=\"images/" + imageFilename
                + "\" class=\"embeddedImage\"/>");
-         copyFile(imageFile, new File(imageTargetDir, imageFilename));
+         imageCopier.copy(imageFilename);
       }
 
       if (assertion.getText() == null)
       {
          throw new IllegalStateException("Error parsing assertion (missing text) " + assertion);
       }
-      String assertionText = parseStrikethrough(parseBold(parseLiteral(escape(assertion
-            .getText()))));
-      sb.append(assertionText);
-      sb.append("</p>\n");
+      MarkupRenderer.render(assertion.getText(), out);
+      out.append("</p>\n");
 
       if (assertion.isTestable())
       {
-         sb.append("    <div class=\"coverage\">\n");
-         sb.append("      <p class=\"coverageHeader\">Coverage</p>\n");
+         out.append("    <div class=\"coverage\">\n");
+         out.append("      <p class=\"coverageHeader\">Coverage</p>\n");
 
          String currentPackageName = null;
 
          if (status.equals(TestStatus.UNCOVERED))
          {
-            sb.append("        <p class=\"noCoverage\">No tests exist for this assertion</p>\n");
+            out.append("        <p class=\"noCoverage\">No tests exist for this assertion</p>\n");
          } else
          {
             for (SpecReference ref : coverage)
@@ -985,176 +1734,144 @@ public class CoverageReport
                if (!ref.getPackageName().equals(currentPackageName))
                {
                   currentPackageName = ref.getPackageName();
-                  sb.append("        <div class=\"packageName\">");
-                  sb.append(currentPackageName);
-                  sb.append("        </div>\n");
+                  out.append("        <div class=\"packageName\">");
+                  out.append(currentPackageName);
+                  out.append("        </div>\n");
                }
-               sb.append("<div class=\"description\"> Test archive name: "+ getSha1OfTestClass(ref.getPackageName()+ "."+ref.getClassName()) +"</div>");
-               sb.append("        <div class=\"coverageMethod\">");
-               sb.append(ref.getClassName());
-               sb.append(".");
-               sb.append(ref.getMethodName());
-               sb.append("()");
+               out.append("<div class=\"description\"> Test archive name: "+ archiveNames.get(ref.getPackageName()+ "."+ref.getClassName()) +"</div>");
+               out.append("        <div class=\"coverageMethod\">");
+               out.append(ref.getClassName());
+               out.append(".");
+               out.append(ref.getMethodName());
+               out.append("()");
 
                boolean appendLinkPipe = false;
 
                if (fisheyeBaseUrl != null)
                {
             	  appendLinkPipe = true;
-                  sb.append("<a class=\"external\" target=\"_blank\" href=\"");
-                  sb.append(fisheyeBaseUrl);
-                  sb.append(currentPackageName.replace('.', '/'));
-                  sb.append("/");
-                  sb.append(ref.getClassName());
-                  sb.append(".java");
-                  sb.append("\">fisheye</a>");
+                  out.append("<a class=\"external\" target=\"_blank\" href=\"");
+                  out.append(fisheyeBaseUrl);
+                  out.append(currentPackageName.replace('.', '/'));
+                  out.append("/");
+                  out.append(ref.getClassName());
+                  out.append(".java");
+                  out.append("\">fisheye</a>");
                }
 
                if (svnBaseUrl != null)
                {
                   if (appendLinkPipe)
                   {
-                     sb.append("|");
+                     out.append("|");
                   }
                   appendLinkPipe = true;
-                  sb.append("<a class=\"external\" target=\"_blank\" href=\"");
-                  sb.append(svnBaseUrl);
-                  sb.append(currentPackageName.replace('.', '/'));
-                  sb.append("/");
-                  sb.append(ref.getClassName());
-                  sb.append(".java");
-                  sb.append("\">svn</a>");
+                  out.append("<a class=\"external\" target=\"_blank\" href=\"");
+                  out.append(svnBaseUrl);
+                  out.append(currentPackageName.replace('.', '/'));
+                  out.append("/");
+                  out.append(ref.getClassName());
+                  out.append(".java");
+                  out.append("\">svn</a>");
                }
 
                if (githubBaseUrl != null)
                {
             	  if (appendLinkPipe)
                   {
-                     sb.append("|");
+                     out.append("|");
                   }
-                  sb.append("<a class=\"external\" target=\"_blank\" href=\"");
-                  sb.append(githubBaseUrl);
-                  sb.append(currentPackageName.replace('.', '/'));
-                  sb.append("/");
-                  sb.append(ref.getClassName());
-                  sb.append(".java");
-                  sb.append("\">github</a>");
+                  out.append("<a class=\"external\" target=\"_blank\" href=\"");
+                  out.append(githubBaseUrl);
+                  out.append(currentPackageName.replace('.', '/'));
+                  out.append("/");
+                  out.append(ref.getClassName());
+                  out.append(".java");
+                  out.append("\">github</a>");
                }
 
-               sb.append("</div>\n");
+               out.append("</div>\n");
             }
          }
 
-         sb.append("    </div>\n");
+         out.append("    </div>\n");
       }
       else if (!coverage.isEmpty())
       {
-         sb.append("<b>A test exists for this untestable assertion!</b>");
+         out.append("<b>A test exists for this untestable assertion!</b>");
       }
 
-      sb.append("</div></div>\n");
+      out.append("</div></div>\n");
    }
 
-   private String parseBold(String text)
+   /**
+    * @return the CSS class of an assertion with the status
+    */
+   static String getStatusClass(AuditAssertion assertion, TestStatus status)
    {
-      Matcher m = PATTERN_BOLD.matcher(text);
-
-      String result = text;
-      while (m.find())
+      if (!assertion.isTestable())
       {
-         String replacement = "<span class=\"highlight\">"
-               + m.group().substring(1, m.group().length() - 1) + "</span>";
-         result = m.replaceFirst(replacement);
-         m.reset(result);
+         return "untestable";
       }
-      return result;
-   }
-
-   private String escape(String value)
-   {
-      return value.replaceAll("<", "&lt;").replaceAll(">", "&gt;");
-   }
-
-   private String parseStrikethrough(String text)
-   {
-      Matcher m = PATTERN_STRIKETHROUGH.matcher(text);
-
-      String result = text;
-      while (m.find())
+      if (status.equals(TestStatus.UNCOVERED))
       {
-         String replacement = "<del>"
-               + m.group().substring(1, m.group().length() - 1) + "</del>";
-         result = m.replaceFirst(replacement);
-         m.reset(result);
+         return "fail";
       }
-      return result;
-   }
-
-   private String parseLiteral(String text)
-   {
-      Matcher m = PATTERN_LITERAL.matcher(text);
-
-      String result = text;
-      while (m.find())
+      else if (status.equals(TestStatus.UNIMPLEMENTED))
       {
-         String replacement = "<span class=\"literal\">"
-               + m.group().substring(1, m.group().length() - 1) + "</span>";
-         result = m.replaceFirst(replacement);
-         m.reset(result);
+         return "skip";
       }
-      return result;
+      return "pass";
    }
 
-   private void writeUnmatched(OutputStream out) throws IOException
+   private void writeUnmatched(Writer out) throws IOException
    {
       if (unmatched.isEmpty())
          return;
 
-      StringBuilder sb = new StringBuilder();
 
-      sb.append("<h3 id=\"unmatched\">Unmatched tests</h3>\n");
-      sb.append(String.format(
+      out.append("<h3 id=\"unmatched\">Unmatched tests</h3>\n");
+      out.append(String.format(
             "<p>The following %d tests do not match any known assertions:</p>",
             unmatched.size()));
 
-      sb.append("<table border=\"1\" cellspacing=\"0\" cellpadding=\"0\">\n");
-      sb
+      out.append("<table border=\"1\" cellspacing=\"0\" cellpadding=\"0\">\n");
+      out
             .append("  <tr><th>Section</th><th>Assertion</th><th>Test Class</th><th>Test Method</th></tr>\n");
 
       Collections.sort(unmatched, SpecReference.COMPARATOR);
       for (SpecReference ref : unmatched)
       {
-         sb.append("<tr>");
+         out.append("<tr>");
 
-         sb.append("<td>");
-         sb.append(ref.getSection());
-         sb.append("</td>");
+         out.append("<td>");
+         out.append(ref.getSection());
+         out.append("</td>");
 
-         sb.append("<td>");
-         sb.append(ref.getAssertion());
-         sb.append("</td>");
+         out.append("<td>");
+         out.append(ref.getAssertion());
+         out.append("</td>");
 
-         sb.append("<td>");
-         sb.append("<div class=\"packageName\">");
-         sb.append(ref.getPackageName());
-         sb.append("</div>");
-         sb.append(ref.getClassName());
-         sb.append("</td>");
+         out.append("<td>");
+         out.append("<div class=\"packageName\">");
+         out.append(ref.getPackageName());
+         out.append("</div>");
+         out.append(ref.getClassName());
+         out.append("</td>");
 
-         sb.append("<td>");
-         sb.append(ref.getMethodName());
-         sb.append("()");
-         sb.append("</td>");
+         out.append("<td>");
+         out.append(ref.getMethodName());
+         out.append("()");
+         out.append("</td>");
 
-         sb.append("</tr>");
+         out.append("</tr>");
       }
 
-      sb.append("</table>");
+      out.append("</table>");
 
-      out.write(sb.toString().getBytes());
    }
 
-   private void writeUnversioned(OutputStream out) throws IOException
+   private void writeUnversioned(Writer out) throws IOException
    {
       if (unversioned.isEmpty())
          return;
@@ -1170,95 +1887,123 @@ public class CoverageReport
          }
       }
 
-      StringBuilder sb = new StringBuilder();
 
-      sb.append("<h3 id=\"unversioned\">Unversioned tests</h3>\n");
-      sb.append(String.format(
+      out.append("<h3 id=\"unversioned\">Unversioned tests</h3>\n");
+      out.append(String.format(
             "<p>The following %d test classes either do not have a version specified, or the version is unrecognized:</p>",
             classes.size()));
 
-      sb.append("<table border=\"1\" cellspacing=\"0\" cellpadding=\"0\">\n");
-      sb.append("  <tr><th>Test Class</th><th>Version</th></tr>\n");
+      out.append("<table border=\"1\" cellspacing=\"0\" cellpadding=\"0\">\n");
+      out.append("  <tr><th>Test Class</th><th>Version</th></tr>\n");
 
       for (String cls : classes.keySet())
       {
-         sb.append("<tr>");
+         out.append("<tr>");
 
-         sb.append("<td>");
-         sb.append(cls);
-         sb.append("</td>");
+         out.append("<td>");
+         out.append(cls);
+         out.append("</td>");
 
-         sb.append("<td>");
-         sb.append(classes.get(cls));
-         sb.append("</td>");
+         out.append("<td>");
+         out.append(classes.get(cls));
+         out.append("</td>");
 
-         sb.append("</tr>");
+         out.append("</tr>");
       }
 
-      sb.append("</table>");
+      out.append("</table>");
 
-      out.write(sb.toString().getBytes());
    }
 
-   private void writeTestGroupSummary(OutputStream out) throws IOException
+   private void writeTestGroupSummary(Writer out) throws IOException
    {
       if (summaryTestGroups == null || summaryTestGroups.isEmpty()) return;
 
-      StringBuilder sb = new StringBuilder();
 
-      sb.append("<h3 id=\"groupsummary\">Highlighted test groups</h3>\n");
-      sb.append("<table border=\"1\" cellspacing=\"0\" cellpadding=\"0\">\n");
-      sb.append("  <tr><th>Test Class</th><th>Test method</th></tr>\n");
+      out.append("<h3 id=\"groupsummary\">Highlighted test groups</h3>\n");
+      out.append("<table border=\"1\" cellspacing=\"0\" cellpadding=\"0\">\n");
+      out.append("  <tr><th>Test Class</th><th>Test method</th></tr>\n");
 
       for (String group : summaryTestGroups.keySet())
       {
-         sb.append("<tr><td colspan=\"2\">");
-         sb.append("<div class=\"groupName\">");
-         sb.append(group);
-         sb.append(" (").append(summaryTestGroups.get(group).size()).append(")");
-         sb.append("</div>");
-         sb.append("</td></tr>");
+         out.append("<tr><td colspan=\"2\">");
+         out.append("<div class=\"groupName\">");
+         out.append(group);
+         out.append(" (").append(String.valueOf(summaryTestGroups.get(group).size())).append(")");
+         out.append("</div>");
+         out.append("</td></tr>");
 
          summaryTestGroups.get(group);
 
          for (Method ref : summaryTestGroups.get(group))
          {
-            sb.append("<tr><td>");
-            sb.append("<div class=\"packageName\">");
-            sb.append(ref.getPackageName());
-            sb.append("</div>");
-            sb.append(ref.getClassName());
-            sb.append("</td><td>");
-            sb.append(ref.getMethodName());
-            sb.append("()</td></tr>");
+            out.append("<tr><td>");
+            out.append("<div class=\"packageName\">");
+            out.append(ref.getPackageName());
+            out.append("</div>");
+            out.append(ref.getClassName());
+            out.append("</td><td>");
+            out.append(ref.getMethodName());
+            out.append("()</td></tr>");
          }
       }
 
-      sb.append("</table>");
-      out.write(sb.toString().getBytes());
+      out.append("</table>");
    }
 
-   private List<SpecReference> getCoverageForAssertion(String sectionId,
-         String assertionId)
+   /**
+    * Group the references by section and assertion. Tests reference the original section id, so if section
+    * ids are generated the references are indexed under the generated id(s) of the section.
+    */
+   private Map<String, Map<String, List<SpecReference>>> indexReferences()
    {
-      List<SpecReference> refs = new ArrayList<SpecReference>();
-
-      if(auditParser.hasSectionIdsGenerated()) {
-    	  sectionId = auditParser.getSectionOriginalId(sectionId);
+      Map<String, List<String>> sectionIds = new HashMap<String, List<String>>();
+      for (String sectionId : auditParser.getSectionIds())
+      {
+         String originalId = auditParser.hasSectionIdsGenerated() ? auditParser.getSectionOriginalId(sectionId) : sectionId;
+         if (!sectionIds.containsKey(originalId))
+         {
+            sectionIds.put(originalId, new ArrayList<String>(1));
+         }
+         sectionIds.get(originalId).add(sectionId);
       }
 
-      if (references.containsKey(sectionId))
+      Map<String, Map<String, List<SpecReference>>> index = new HashMap<String, Map<String, List<SpecReference>>>();
+      for (Map.Entry<String, List<SpecReference>> entry : references.entrySet())
       {
-         for (SpecReference ref : references.get(sectionId))
+         if (!sectionIds.containsKey(entry.getKey()))
+         {
+            continue;
+         }
+
+         Map<String, List<SpecReference>> assertions = new HashMap<String, List<SpecReference>>();
+         for (SpecReference ref : entry.getValue())
          {
-            if (ref.getAssertion().equals(assertionId))
+            if (!assertions.containsKey(ref.getAssertion()))
             {
-               refs.add(ref);
+               assertions.put(ref.getAssertion(), new ArrayList<SpecReference>());
             }
+            assertions.get(ref.getAssertion()).add(ref);
+         }
+         for (Map.Entry<String, List<SpecReference>> assertion : assertions.entrySet())
+         {
+            assertion.setValue(Collections.unmodifiableList(assertion.getValue()));
+         }
+
+         for (String sectionId : sectionIds.get(entry.getKey()))
+         {
+            index.put(sectionId, assertions);
          }
       }
+      return index;
+   }
 
-      return refs;
+   private List<SpecReference> getCoverageForAssertion(String sectionId,
+         String assertionId)
+   {
+      Map<String, List<SpecReference>> assertions = referenceIndex.get(sectionId);
+      List<SpecReference> refs = assertions != null ? assertions.get(assertionId) : null;
+      return refs != null ? refs : Collections.<SpecReference>emptyList();
    }
 
    private TestStatus getStatus(List<SpecReference> references)
@@ -1289,46 +2034,81 @@ public class CoverageReport
       return true;
    }
 
-   private void writeFooter(OutputStream out) throws IOException
+   private void writeDiff(Writer out, CoverageSnapshot baseline, CoverageDiff diff) throws IOException
    {
-      out.write("</table>".getBytes());
-      out.write("</body></html>".getBytes());
+      writeHeader(out);
+
+      out.append("<h3>Coverage Changes</h3>\n");
+      out.append("<p>Compared with the baseline of version " + MarkupRenderer.escape(baseline.getVersion())
+            + ".</p>\n");
+      if (diff.isEmpty())
+      {
+         out.append("<p>The coverage is unchanged.</p>\n");
+      }
+
+      writeDiffChanges(out, "becameCovered", "Assertions which became covered", diff.getBecameCovered());
+      writeDiffChanges(out, "becameUncovered", "Assertions which became uncovered", diff.getBecameUncovered());
+      writeDiffChanges(out, "becameUnimplemented", "Assertions which became unimplemented",
+            diff.getBecameUnimplemented());
+      writeDiffChanges(out, "testsChanged", "Assertions which gained or lost tests", diff.getTestsChanged());
+      writeDiffChanges(out, "removed", "Assertions which were removed", diff.getRemoved());
+
+      out.append("</body></html>");
    }
 
-   private void copyFile(File sourceFile, File targetFile) throws IOException
+   private void writeDiffChanges(Writer out, String id, String title, List<CoverageDiff.Change> changes)
+         throws IOException
    {
-      FileChannel inChannel = new FileInputStream(sourceFile).getChannel();
-      FileChannel outChannel = new FileOutputStream(targetFile).getChannel();
-      try
+      if (changes.isEmpty())
       {
-         inChannel.transferTo(0, inChannel.size(), outChannel);
-      } catch (IOException e)
-      {
-         throw e;
-      } finally
+         return;
+      }
+
+      out.append("<h3 id=\"" + id + "\">" + title + "</h3>\n");
+      out.append("<table border=\"1\" cellspacing=\"0\" cellpadding=\"0\">\n");
+      out.append("  <tr><th>Section</th><th>Assertion</th><th>Baseline</th><th>Current</th>"
+            + "<th>Tests gained</th><th>Tests lost</th></tr>\n");
+
+      for (CoverageDiff.Change change : changes)
       {
-         if (inChannel != null)
-            inChannel.close();
-         if (outChannel != null)
-            outChannel.close();
+         CoverageSnapshot.Entry entry = change.getCurrent() != null ? change.getCurrent() : change.getBaseline();
+         out.append("<tr>");
+         out.append("<td>" + MarkupRenderer.escape(entry.getSectionId()) + "</td>");
+         out.append("<td>" + MarkupRenderer.escape(entry.getAssertionId()) + "</td>");
+         out.append("<td>" + getDiffStatus(change.getBaseline()) + "</td>");
+         out.append("<td>" + getDiffStatus(change.getCurrent()) + "</td>");
+         out.append("<td>");
+         writeDiffTests(out, change.getGainedTests());
+         out.append("</td><td>");
+         writeDiffTests(out, change.getLostTests());
+         out.append("</td>");
+         out.append("</tr>\n");
       }
+
+      out.append("</table>\n");
    }
 
-   private String getSha1OfTestClass(String fqn){
-      MessageDigest messageDigest = null;
-      try {
-         messageDigest = MessageDigest.getInstance("SHA-1");
-      } catch (NoSuchAlgorithmException e) {
-         return null;
+   private static String getDiffStatus(CoverageSnapshot.Entry entry)
+   {
+      if (entry == null)
+      {
+         return "-";
       }
-      messageDigest.update(fqn.getBytes());
-      byte[] digest = messageDigest.digest();
+      return entry.isTestable() ? entry.getStatus().name().toLowerCase() : "untestable";
+   }
 
-      StringBuilder hexString = new StringBuilder();
-      for (int i = 0; i < digest.length; i++) {
-         hexString.append(Integer.toHexString(0xFF & digest[i]));
+   private static void writeDiffTests(Writer out, List<String> tests) throws IOException
+   {
+      for (String test : tests)
+      {
+         out.append("<div class=\"coverageMethod\">" + MarkupRenderer.escape(test) + "()</div>");
       }
-      return hexString.toString();
+   }
 
+   private void writeFooter(Writer out) throws IOException
+   {
+      out.write("</table>");
+      out.write("</body></html>");
    }
+
 }
@@ -0,0 +1,285 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.jboss.test.audit.report.CoverageReport.TestStatus;
+
+/**
+ * The status and covering tests of each assertion of a spec, as saved by one
+ * report to be compared with by a later one. Assertions are keyed by their
+ * original section id and assertion id, which are stable across audit file
+ * changes.
+ *
+ * <p>
+ * The file starts with a magic number and the format version, followed by the
+ * spec metadata and the entries. Strings are written with
+ * {@link DataOutputStream#writeUTF(String)}.
+ * </p>
+ */
+class CoverageSnapshot
+{
+   private static final int MAGIC = 0x54434b53;
+   private static final int FORMAT_VERSION = 1;
+
+   /**
+    * The saved coverage of one assertion
+    */
+   static class Entry
+   {
+      private final String sectionId;
+      private final String assertionId;
+      private final boolean testable;
+      private final TestStatus status;
+      private final List<String> tests;
+
+      Entry(String sectionId, String assertionId, boolean testable, TestStatus status, List<String> tests)
+      {
+         this.sectionId = sectionId;
+         this.assertionId = assertionId;
+         this.testable = testable;
+         this.status = status;
+         this.tests = tests;
+      }
+
+      /**
+       * @return the original section id
+       */
+      String getSectionId()
+      {
+         return sectionId;
+      }
+
+      String getAssertionId()
+      {
+         return assertionId;
+      }
+
+      boolean isTestable()
+      {
+         return testable;
+      }
+
+      TestStatus getStatus()
+      {
+         return status;
+      }
+
+      /**
+       * @return the sorted test methods, as fully qualified class name and method name
+       */
+      List<String> getTests()
+      {
+         return tests;
+      }
+
+      String getKey()
+      {
+         return key(sectionId, assertionId);
+      }
+   }
+
+   private final String specId;
+   private final String version;
+   private final Map<String, Entry> entries;
+
+   private CoverageSnapshot(String specId, String version, Map<String, Entry> entries)
+   {
+      this.specId = specId;
+      this.version = version;
+      this.entries = entries;
+   }
+
+   /**
+    * @return the snapshot of the coverage in the statistics
+    */
+   static CoverageSnapshot of(AuditParser auditParser, CoverageStatistics statistics)
+   {
+      Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+      for (String sectionId : auditParser.getSectionIds())
+      {
+         String originalId = auditParser.hasSectionIdsGenerated() ? auditParser.getSectionOriginalId(sectionId)
+               : sectionId;
+         for (AuditAssertion assertion : auditParser.getAssertionsForSection(sectionId))
+         {
+            CoverageStatistics.AssertionCoverage coverage = statistics.getCoverage(assertion);
+            TreeSet<String> tests = new TreeSet<String>();
+            for (SpecReference ref : coverage.getReferences())
+            {
+               tests.add(ref.getPackageName() + "." + ref.getClassName() + "." + ref.getMethodName());
+            }
+            Entry entry = new Entry(originalId, assertion.getId(), assertion.isTestable(), coverage.getStatus(),
+                  Collections.unmodifiableList(new ArrayList<String>(tests)));
+            entries.put(entry.getKey(), entry);
+         }
+      }
+      return new CoverageSnapshot(auditParser.getSpecId(), auditParser.getVersion(), entries);
+   }
+
+   static String key(String sectionId, String assertionId)
+   {
+      return sectionId + '\u0000' + assertionId;
+   }
+
+   String getSpecId()
+   {
+      return specId;
+   }
+
+   String getVersion()
+   {
+      return version;
+   }
+
+   /**
+    * @return the entries, in report order
+    */
+   Collection<Entry> getEntries()
+   {
+      return Collections.unmodifiableCollection(entries.values());
+   }
+
+   /**
+    * @return the entry with the key, or null if there is none
+    */
+   Entry get(String key)
+   {
+      return entries.get(key);
+   }
+
+   /**
+    * Write the snapshot. It is written to a temporary file first, so that the
+    * previous snapshot is intact if writing fails.
+    */
+   void write(File file) throws IOException
+   {
+      File tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+      try
+      {
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+         try
+         {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            // Audit files without a spec id or version are written with empty ones
+            out.writeUTF(specId == null ? "" : specId);
+            out.writeUTF(version == null ? "" : version);
+            out.writeInt(entries.size());
+            for (Entry entry : entries.values())
+            {
+               out.writeUTF(entry.getSectionId());
+               out.writeUTF(entry.getAssertionId());
+               out.writeBoolean(entry.isTestable());
+               out.writeByte(entry.getStatus().ordinal());
+               out.writeInt(entry.getTests().size());
+               for (String test : entry.getTests())
+               {
+                  out.writeUTF(test);
+               }
+            }
+         }
+         finally
+         {
+            out.close();
+         }
+         Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      finally
+      {
+         tmp.delete();
+      }
+   }
+
+   /**
+    * @throws IOException if the file can not be read or is not a snapshot
+    */
+   static CoverageSnapshot read(File file) throws IOException
+   {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      try
+      {
+         if (in.readInt() != MAGIC)
+         {
+            throw new IOException("Not a coverage snapshot " + file.getAbsolutePath());
+         }
+         int formatVersion = in.readInt();
+         if (formatVersion != FORMAT_VERSION)
+         {
+            throw new IOException("Unsupported coverage snapshot version " + formatVersion + " "
+                  + file.getAbsolutePath());
+         }
+         String specId = in.readUTF();
+         String version = in.readUTF();
+
+         TestStatus[] statuses = TestStatus.values();
+         // No count can exceed the size of the file, which bounds the counts read from a corrupt one
+         long maxCount = file.length();
+         int count = in.readInt();
+         if (count < 0 || count > maxCount)
+         {
+            throw new IOException("Invalid entry count " + count + " " + file.getAbsolutePath());
+         }
+         Map<String, Entry> entries = new LinkedHashMap<String, Entry>(count * 4 / 3 + 1);
+         for (int i = 0; i < count; i++)
+         {
+            String sectionId = in.readUTF();
+            String assertionId = in.readUTF();
+            boolean testable = in.readBoolean();
+            int status = in.readByte();
+            if (status < 0 || status >= statuses.length)
+            {
+               throw new IOException("Unknown test status " + status + " " + file.getAbsolutePath());
+            }
+            int testCount = in.readInt();
+            if (testCount < 0 || testCount > maxCount)
+            {
+               throw new IOException("Invalid test count " + testCount + " " + file.getAbsolutePath());
+            }
+            List<String> tests = new ArrayList<String>(testCount);
+            for (int j = 0; j < testCount; j++)
+            {
+               tests.add(in.readUTF());
+            }
+            Entry entry = new Entry(sectionId, assertionId, testable, statuses[status],
+                  Collections.unmodifiableList(tests));
+            entries.put(entry.getKey(), entry);
+         }
+         return new CoverageSnapshot(specId, version, entries);
+      }
+      finally
+      {
+         in.close();
+      }
+   }
+}
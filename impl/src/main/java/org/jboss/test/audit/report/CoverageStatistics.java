@@ -0,0 +1,297 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.test.audit.report.CoverageReport.TestStatus;
+
+/**
+ * The coverage of a spec, computed once per report. Each assertion's status
+ * and covering references are resolved exactly once and folded into
+ * per-section counters, which all parts of the report read.
+ *
+ * <p>
+ * Subtotals are rolled up the {@link SectionTree} in one bottom-up pass, so
+ * every section also has counters including all of its subsections. The
+ * subtotals of the top level sections are the chapter counters.
+ * </p>
+ */
+public class CoverageStatistics
+{
+
+   /**
+    * Assertion counters of a section, a chapter or the whole spec
+    */
+   public static class Counters
+   {
+      private int assertions;
+      private int testable;
+      private int testCount;
+      private int implemented;
+      private int unimplemented;
+
+      Counters()
+      {
+      }
+
+      /**
+       * Restores saved counters
+       */
+      Counters(int assertions, int testable, int testCount, int implemented, int unimplemented)
+      {
+         this.assertions = assertions;
+         this.testable = testable;
+         this.testCount = testCount;
+         this.implemented = implemented;
+         this.unimplemented = unimplemented;
+      }
+
+      void add(AssertionCoverage coverage)
+      {
+         assertions++;
+         if (coverage.getAssertion().isTestable())
+         {
+            testable++;
+         }
+         testCount += coverage.getReferences().size();
+         if (coverage.getStatus().equals(TestStatus.COVERED))
+         {
+            implemented++;
+         }
+         else if (coverage.getStatus().equals(TestStatus.UNIMPLEMENTED))
+         {
+            unimplemented++;
+         }
+      }
+
+      void add(Counters other)
+      {
+         assertions += other.assertions;
+         testable += other.testable;
+         testCount += other.testCount;
+         implemented += other.implemented;
+         unimplemented += other.unimplemented;
+      }
+
+      public int getAssertions()
+      {
+         return assertions;
+      }
+
+      public int getTestable()
+      {
+         return testable;
+      }
+
+      /**
+       * @return the number of tests referencing the assertions
+       */
+      public int getTestCount()
+      {
+         return testCount;
+      }
+
+      /**
+       * @return the number of assertions covered by at least one implemented test
+       */
+      public int getImplemented()
+      {
+         return implemented;
+      }
+
+      /**
+       * @return the number of assertions only covered by unimplemented tests
+       */
+      public int getUnimplemented()
+      {
+         return unimplemented;
+      }
+
+      public int getTested()
+      {
+         return implemented + unimplemented;
+      }
+
+      /**
+       * @return the coverage percentage, or -1 if there are no testable assertions
+       */
+      public double getCoveragePercent()
+      {
+         return testable > 0 ? ((implemented * 1.0) / testable) * 100 : -1;
+      }
+   }
+
+   /**
+    * The coverage of a single assertion
+    */
+   public static class AssertionCoverage
+   {
+      private final AuditAssertion assertion;
+      private final List<SpecReference> references;
+      private final TestStatus status;
+
+      AssertionCoverage(AuditAssertion assertion, List<SpecReference> references, TestStatus status)
+      {
+         this.assertion = assertion;
+         this.references = references;
+         this.status = status;
+      }
+
+      public AuditAssertion getAssertion()
+      {
+         return assertion;
+      }
+
+      /**
+       * @return the references of tests covering the assertion
+       */
+      public List<SpecReference> getReferences()
+      {
+         return references;
+      }
+
+      public TestStatus getStatus()
+      {
+         return status;
+      }
+   }
+
+   private final AuditParser auditParser;
+
+   private final Map<AuditAssertion, AssertionCoverage> assertions = new IdentityHashMap<AuditAssertion, AssertionCoverage>();
+   private final Map<String, Counters> sections = new HashMap<String, Counters>();
+   private final Map<SectionTree.Node, Counters> subtotals = new IdentityHashMap<SectionTree.Node, Counters>();
+   private final List<String> chapterIds = new ArrayList<String>();
+   private final Counters total = new Counters();
+
+   CoverageStatistics(AuditParser auditParser)
+   {
+      this.auditParser = auditParser;
+      for (String sectionId : auditParser.getSectionIds())
+      {
+         sections.put(sectionId, new Counters());
+      }
+   }
+
+   void record(AuditAssertion assertion, List<SpecReference> references, TestStatus status)
+   {
+      AssertionCoverage coverage = new AssertionCoverage(assertion, references, status);
+      assertions.put(assertion, coverage);
+      sections.get(assertion.getSection()).add(coverage);
+   }
+
+   /**
+    * Roll the section counters up the section tree, once all assertions are recorded
+    */
+   void complete()
+   {
+      SectionTree.Node root = auditParser.getSectionTree().getRoot();
+      rollup(root);
+
+      for (SectionTree.Node chapter : root.getChildren())
+      {
+         // Chapters not defined by the audit file are not reported
+         if (chapter.getSectionId() != null)
+         {
+            chapterIds.add(chapter.getSectionId());
+            total.add(subtotals.get(chapter));
+         }
+      }
+   }
+
+   private Counters rollup(SectionTree.Node node)
+   {
+      Counters subtotal = new Counters();
+      if (node.getSectionId() != null)
+      {
+         subtotal.add(sections.get(node.getSectionId()));
+      }
+      for (SectionTree.Node child : node.getChildren())
+      {
+         subtotal.add(rollup(child));
+      }
+      subtotals.put(node, subtotal);
+      return subtotal;
+   }
+
+   /**
+    * @param assertion
+    * @return the coverage of the assertion
+    */
+   public AssertionCoverage getCoverage(AuditAssertion assertion)
+   {
+      return assertions.get(assertion);
+   }
+
+   /**
+    * @param sectionId
+    * @return the counters of the assertions defined directly in the section
+    */
+   public Counters getSectionCounters(String sectionId)
+   {
+      return sections.get(sectionId);
+   }
+
+   /**
+    * @return the ids of all chapters in report order
+    */
+   public List<String> getChapterIds()
+   {
+      return Collections.unmodifiableList(chapterIds);
+   }
+
+   /**
+    * @param chapterId
+    * @return the counters of the chapter including all its subsections
+    */
+   public Counters getChapterCounters(String chapterId)
+   {
+      return getSubtotalCounters(chapterId);
+   }
+
+   /**
+    * @param sectionId
+    * @return the counters of the section including all its subsections, at any level
+    */
+   public Counters getSubtotalCounters(String sectionId)
+   {
+      return getSubtotalCounters(auditParser.getSectionTree().getNode(sectionId));
+   }
+
+   /**
+    * @param node
+    * @return the counters of all sections in the subtree of the node
+    */
+   public Counters getSubtotalCounters(SectionTree.Node node)
+   {
+      return subtotals.get(node);
+   }
+
+   /**
+    * @return the counters of all chapters
+    */
+   public Counters getTotalCounters()
+   {
+      return total;
+   }
+}
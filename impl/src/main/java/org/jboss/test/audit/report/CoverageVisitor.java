@@ -0,0 +1,38 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.IOException;
+
+/**
+ * Visits a {@link CoverageModel} in report order: the spec, each chapter,
+ * then each section with its assertions.
+ */
+public interface CoverageVisitor
+{
+   void beginSpec(CoverageModel model) throws IOException;
+
+   void visitChapter(CoverageModel.Chapter chapter) throws IOException;
+
+   void beginSection(CoverageModel.Section section) throws IOException;
+
+   void visitAssertion(CoverageModel.Section section, CoverageModel.Assertion assertion) throws IOException;
+
+   void endSection(CoverageModel.Section section) throws IOException;
+
+   void endSpec(CoverageModel model) throws IOException;
+}
@@ -0,0 +1,206 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copies the assertion images of a report to the output directory. The
+ * image directory is listed once, so looking up the image of an assertion
+ * does not touch the file system.
+ *
+ * <p>
+ * Images are copied in the background on a small pool of threads. An image
+ * is not copied again if the target has the same size and either the same
+ * modification time or the same content.
+ * </p>
+ */
+class ImageCopier
+{
+   private final File sourceDir;
+   private final File targetDir;
+   private final int threads;
+   private final Set<String> images;
+
+   private final Set<String> scheduled = new HashSet<String>();
+   private final List<Future<?>> copies = new ArrayList<Future<?>>();
+   private ExecutorService executor;
+
+   /**
+    * @param sourceDir the image directory, may be null
+    * @param targetDir the directory to copy the images to, or null if images are not copied
+    * @param threads the maximum number of images copied concurrently
+    */
+   ImageCopier(File sourceDir, File targetDir, int threads)
+   {
+      this.sourceDir = sourceDir;
+      this.targetDir = targetDir;
+      this.threads = Math.max(1, threads);
+
+      String[] names = sourceDir != null ? sourceDir.list() : null;
+      this.images = names != null ? new HashSet<String>(Arrays.asList(names)) : Collections.<String> emptySet();
+   }
+
+   /**
+    * @param filename
+    * @return true if the image directory contains the file
+    */
+   boolean exists(String filename)
+   {
+      return images.contains(filename);
+   }
+
+   /**
+    * Schedule the copy of an image, unless it is already scheduled
+    *
+    * @param filename
+    */
+   synchronized void copy(final String filename)
+   {
+      if (targetDir == null || !scheduled.add(filename))
+      {
+         return;
+      }
+      if (executor == null)
+      {
+         executor = newExecutor();
+      }
+      copies.add(executor.submit(new Callable<Void>()
+      {
+         @Override
+         public Void call() throws IOException
+         {
+            copyIfChanged(new File(sourceDir, filename), new File(targetDir, filename));
+            return null;
+         }
+      }));
+   }
+
+   /**
+    * Wait for all scheduled copies
+    *
+    * @throws IOException if an image could not be copied
+    */
+   synchronized void finish() throws IOException
+   {
+      if (executor == null)
+      {
+         return;
+      }
+      try
+      {
+         IOException failure = null;
+         for (Future<?> copy : copies)
+         {
+            try
+            {
+               copy.get();
+            }
+            catch (ExecutionException e)
+            {
+               IOException cause = e.getCause() instanceof IOException ? (IOException) e.getCause()
+                     : new IOException(e.getCause());
+               if (failure == null)
+               {
+                  failure = cause;
+               }
+               else
+               {
+                  failure.addSuppressed(cause);
+               }
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+               throw new IOException("Interrupted while copying images", e);
+            }
+         }
+         if (failure != null)
+         {
+            throw failure;
+         }
+      }
+      finally
+      {
+         executor.shutdownNow();
+         executor = null;
+         copies.clear();
+      }
+   }
+
+   static void copyIfChanged(File source, File target) throws IOException
+   {
+      if (target.isFile() && target.length() == source.length())
+      {
+         if (target.lastModified() == source.lastModified())
+         {
+            return;
+         }
+         if (Arrays.equals(Files.readAllBytes(source.toPath()), Files.readAllBytes(target.toPath())))
+         {
+            // Skip the content comparison next time
+            target.setLastModified(source.lastModified());
+            return;
+         }
+      }
+
+      // Copy to a temporary file first, so that an interrupted build never leaves a truncated image behind
+      File tmp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+      try
+      {
+         Files.copy(source.toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+         Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+         target.setLastModified(source.lastModified());
+      }
+      finally
+      {
+         tmp.delete();
+      }
+   }
+
+   private ExecutorService newExecutor()
+   {
+      return Executors.newFixedThreadPool(threads, new ThreadFactory()
+      {
+         private final AtomicInteger count = new AtomicInteger();
+
+         @Override
+         public Thread newThread(Runnable runnable)
+         {
+            Thread thread = new Thread(runnable, "image-copier-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+         }
+      });
+   }
+}
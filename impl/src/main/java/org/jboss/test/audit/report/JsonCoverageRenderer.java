@@ -0,0 +1,194 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Renders the coverage of a spec as JSON: the spec metadata, the counters of
+ * the whole spec, of each chapter and of each section, and the status and
+ * covering references of each assertion. The JSON is streamed as the model is
+ * visited.
+ */
+public final class JsonCoverageRenderer implements CoverageRenderer
+{
+   /**
+    * The format of the renderer
+    */
+   public static final String FORMAT = "json";
+
+   @Override
+   public String getFormat()
+   {
+      return FORMAT;
+   }
+
+   @Override
+   public String getFileName(String specId)
+   {
+      return "coverage-" + specId + ".json";
+   }
+
+   @Override
+   public CoverageVisitor newVisitor(Writer out)
+   {
+      return new JsonVisitor(out);
+   }
+
+   private static class JsonVisitor implements CoverageVisitor
+   {
+      private final Writer out;
+      private final JsonWriter json;
+
+      private boolean inSections;
+
+      JsonVisitor(Writer out)
+      {
+         this.out = out;
+         this.json = new JsonWriter(out);
+      }
+
+      @Override
+      public void beginSpec(CoverageModel model) throws IOException
+      {
+         json.beginObject();
+
+         json.name("spec").beginObject();
+         json.name("id").value(model.getSpecId());
+         json.name("name").value(model.getName());
+         json.name("version").value(model.getVersion());
+         json.endObject();
+
+         json.name("total");
+         writeCounters(model.getTotal());
+
+         json.name("chapters").beginArray();
+      }
+
+      @Override
+      public void visitChapter(CoverageModel.Chapter chapter) throws IOException
+      {
+         json.beginObject();
+         json.name("id").value(chapter.getId());
+         json.name("title").value(chapter.getTitle());
+         json.name("counters");
+         writeCounters(chapter.getCounters());
+         json.endObject();
+      }
+
+      @Override
+      public void beginSection(CoverageModel.Section section) throws IOException
+      {
+         beginSections();
+
+         json.beginObject();
+         json.name("id").value(section.getId());
+         if (section.getOriginalId() != null)
+         {
+            json.name("originalId").value(section.getOriginalId());
+         }
+         json.name("title").value(section.getTitle());
+         json.name("depth").value(section.getDepth());
+         json.name("counters");
+         writeCounters(section.getCounters());
+         json.name("subtotal");
+         writeCounters(section.getSubtotal());
+
+         json.name("assertions").beginArray();
+      }
+
+      @Override
+      public void visitAssertion(CoverageModel.Section section, CoverageModel.Assertion assertion)
+            throws IOException
+      {
+         json.beginObject();
+         json.name("id").value(assertion.getId());
+         json.name("testable").value(assertion.isTestable());
+         json.name("implied").value(assertion.isImplied());
+         json.name("grouped").value(assertion.getGroupText() != null);
+         json.name("status").value(assertion.getStatus().name());
+         json.name("references").beginArray();
+         for (CoverageModel.Reference ref : assertion.getReferences())
+         {
+            json.beginObject();
+            json.name("package").value(ref.getPackageName());
+            json.name("class").value(ref.getClassName());
+            json.name("method").value(ref.getMethodName());
+            json.name("groups").beginArray();
+            for (String group : ref.getGroups())
+            {
+               json.value(group);
+            }
+            json.endArray();
+            json.endObject();
+         }
+         json.endArray();
+         json.endObject();
+      }
+
+      @Override
+      public void endSection(CoverageModel.Section section) throws IOException
+      {
+         json.endArray();
+         json.endObject();
+      }
+
+      @Override
+      public void endSpec(CoverageModel model) throws IOException
+      {
+         beginSections();
+         json.endArray();
+         json.endObject();
+         out.write('\n');
+      }
+
+      /**
+       * Close the chapters and open the sections, before the first section
+       */
+      private void beginSections() throws IOException
+      {
+         if (!inSections)
+         {
+            inSections = true;
+            json.endArray();
+            json.name("sections").beginArray();
+         }
+      }
+
+      private void writeCounters(CoverageStatistics.Counters counters) throws IOException
+      {
+         json.beginObject();
+         json.name("assertions").value(counters.getAssertions());
+         json.name("testable").value(counters.getTestable());
+         json.name("tested").value(counters.getTested());
+         json.name("tests").value(counters.getTestCount());
+         json.name("implemented").value(counters.getImplemented());
+         json.name("unimplemented").value(counters.getUnimplemented());
+         json.name("coverage");
+         if (counters.getCoveragePercent() < 0)
+         {
+            json.nullValue();
+         }
+         else
+         {
+            json.value(counters.getCoveragePercent());
+         }
+         json.endObject();
+      }
+   }
+}
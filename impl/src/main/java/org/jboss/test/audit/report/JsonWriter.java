@@ -0,0 +1,204 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes compact JSON to a writer as it goes, without building a document in
+ * memory. Commas between values are inserted automatically; names are only
+ * valid inside objects. Strings are escaped so that the output can also be
+ * embedded in a script.
+ */
+class JsonWriter
+{
+   private static final int MAX_DEPTH = 64;
+
+   private final Writer out;
+
+   /*
+    * Whether a value has been written at each nesting level, to know where commas go
+    */
+   private final boolean[] hasValue = new boolean[MAX_DEPTH];
+   private int depth;
+   private boolean afterName;
+
+   JsonWriter(Writer out)
+   {
+      this.out = out;
+   }
+
+   JsonWriter beginObject() throws IOException
+   {
+      return open('{');
+   }
+
+   JsonWriter endObject() throws IOException
+   {
+      return close('}');
+   }
+
+   JsonWriter beginArray() throws IOException
+   {
+      return open('[');
+   }
+
+   JsonWriter endArray() throws IOException
+   {
+      return close(']');
+   }
+
+   JsonWriter name(String name) throws IOException
+   {
+      separate();
+      string(name);
+      out.write(':');
+      afterName = true;
+      return this;
+   }
+
+   JsonWriter value(String value) throws IOException
+   {
+      if (value == null)
+      {
+         return nullValue();
+      }
+      separate();
+      string(value);
+      return this;
+   }
+
+   JsonWriter value(long value) throws IOException
+   {
+      separate();
+      out.write(Long.toString(value));
+      return this;
+   }
+
+   JsonWriter value(double value) throws IOException
+   {
+      if (Double.isNaN(value) || Double.isInfinite(value))
+      {
+         throw new IllegalArgumentException("Not a valid JSON number " + value);
+      }
+      separate();
+      out.write(Double.toString(value));
+      return this;
+   }
+
+   JsonWriter value(boolean value) throws IOException
+   {
+      separate();
+      out.write(value ? "true" : "false");
+      return this;
+   }
+
+   JsonWriter nullValue() throws IOException
+   {
+      separate();
+      out.write("null");
+      return this;
+   }
+
+   private JsonWriter open(char c) throws IOException
+   {
+      separate();
+      if (depth + 1 >= MAX_DEPTH)
+      {
+         throw new IllegalStateException("JSON nested too deeply");
+      }
+      out.write(c);
+      hasValue[++depth] = false;
+      return this;
+   }
+
+   private JsonWriter close(char c) throws IOException
+   {
+      if (depth == 0)
+      {
+         throw new IllegalStateException("No open JSON object or array");
+      }
+      depth--;
+      out.write(c);
+      return this;
+   }
+
+   private void separate() throws IOException
+   {
+      if (afterName)
+      {
+         afterName = false;
+         return;
+      }
+      if (hasValue[depth])
+      {
+         out.write(',');
+      }
+      hasValue[depth] = true;
+   }
+
+   private void string(String value) throws IOException
+   {
+      out.write('"');
+      int start = 0;
+      for (int i = 0; i < value.length(); i++)
+      {
+         char c = value.charAt(i);
+         String replacement;
+         if (c == '"')
+         {
+            replacement = "\\\"";
+         }
+         else if (c == '\\')
+         {
+            replacement = "\\\\";
+         }
+         else if (c == '\n')
+         {
+            replacement = "\\n";
+         }
+         else if (c == '\r')
+         {
+            replacement = "\\r";
+         }
+         else if (c == '\t')
+         {
+            replacement = "\\t";
+         }
+         else if (c == '/' && i > 0 && value.charAt(i - 1) == '<')
+         {
+            // "</script>" must never end an embedding script
+            replacement = "\\/";
+         }
+         else if (c < 0x20 || c == '\u2028' || c == '\u2029')
+         {
+            // Line separators are not valid in JavaScript strings
+            replacement = String.format("\\u%04x", (int) c);
+         }
+         else
+         {
+            continue;
+         }
+         out.write(value, start, i - start);
+         out.write(replacement);
+         start = i + 1;
+      }
+      out.write(value, start, value.length() - start);
+      out.write('"');
+   }
+}
@@ -0,0 +1,150 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.IOException;
+
+/**
+ * Renders the markup of assertion and group texts to HTML in a single scan.
+ *
+ * <p>
+ * Markers are paired from left to right: <code>|literal|</code>,
+ * <code>_highlight_</code> and <code>~strikethrough~</code>. Markers of
+ * different kinds are paired independently of each other, and a marker
+ * without a closing counterpart is kept as is. The angle brackets are
+ * escaped.
+ * </p>
+ */
+final class MarkupRenderer
+{
+   private static final char LITERAL = '|';
+   private static final char HIGHLIGHT = '_';
+   private static final char STRIKETHROUGH = '~';
+
+   private MarkupRenderer()
+   {
+   }
+
+   /**
+    * @param text
+    * @return the text with the angle brackets escaped
+    */
+   static String escape(String text)
+   {
+      StringBuilder sb = new StringBuilder(text.length() + 16);
+      try
+      {
+         render(text, sb, false);
+      }
+      catch (IOException e)
+      {
+         // Not thrown by StringBuilder
+         throw new IllegalStateException(e);
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Escape the text and render its markup
+    *
+    * @param text
+    * @param out
+    * @throws IOException
+    */
+   static void render(String text, Appendable out) throws IOException
+   {
+      render(text, out, true);
+   }
+
+   private static void render(String text, Appendable out, boolean markup) throws IOException
+   {
+      int literals = 0;
+      int highlights = 0;
+      int strikethroughs = 0;
+      if (markup)
+      {
+         for (int i = 0; i < text.length(); i++)
+         {
+            switch (text.charAt(i))
+            {
+               case LITERAL:
+                  literals++;
+                  break;
+               case HIGHLIGHT:
+                  highlights++;
+                  break;
+               case STRIKETHROUGH:
+                  strikethroughs++;
+                  break;
+               default:
+                  break;
+            }
+         }
+      }
+
+      int literal = 0;
+      int highlight = 0;
+      int strikethrough = 0;
+      int start = 0;
+      for (int i = 0; i < text.length(); i++)
+      {
+         char c = text.charAt(i);
+         String replacement;
+         switch (c)
+         {
+            case '<':
+               replacement = "&lt;";
+               break;
+            case '>':
+               replacement = "&gt;";
+               break;
+            case LITERAL:
+               replacement = marker(literal++, literals, "<span class=\"literal\">", "</span>");
+               break;
+            case HIGHLIGHT:
+               replacement = marker(highlight++, highlights, "<span class=\"highlight\">", "</span>");
+               break;
+            case STRIKETHROUGH:
+               replacement = marker(strikethrough++, strikethroughs, "<del>", "</del>");
+               break;
+            default:
+               replacement = null;
+               break;
+         }
+         if (replacement != null)
+         {
+            out.append(text, start, i).append(replacement);
+            start = i + 1;
+         }
+      }
+      out.append(text, start, text.length());
+   }
+
+   /**
+    * @param index the index of the marker among the markers of its kind
+    * @param count the number of markers of its kind, 0 if markup is not rendered
+    * @return the tag replacing the marker, or null if the marker is kept
+    */
+   private static String marker(int index, int count, String open, String close)
+   {
+      if (index % 2 == 1)
+      {
+         return index < count ? close : null;
+      }
+      return index + 1 < count ? open : null;
+   }
+}
@@ -0,0 +1,210 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Cache of rendered report sections. Each fragment is stored in its own file,
+ * named after a key which hashes everything the fragment is rendered from, so
+ * that a section is only rendered again when its items or their coverage
+ * change.
+ *
+ * <p>
+ * The cache is safe to use from several rendering threads. Entries which are
+ * not used while a report is generated are removed by {@link #prune()}.
+ * </p>
+ */
+class SectionFragmentCache
+{
+   private static final String FRAGMENT_SUFFIX = ".fragment";
+
+   private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+   private final File cacheDir;
+   private final byte[] salt;
+
+   private final Set<String> used = new HashSet<String>();
+
+   /**
+    * @param salt hash of the configuration which all fragments are rendered with
+    */
+   SectionFragmentCache(File cacheDir, byte[] salt)
+   {
+      this.cacheDir = cacheDir;
+      this.salt = salt;
+   }
+
+   /**
+    * @return a new key, which already contains the configuration salt
+    */
+   Key newKey()
+   {
+      Key key = new Key();
+      key.digest.update(salt);
+      return key;
+   }
+
+   /**
+    * @return the cached fragment, or null if there is none for the key
+    */
+   String load(String key)
+   {
+      File file = getFile(key);
+      markUsed(file);
+      try
+      {
+         return new String(Files.readAllBytes(file.toPath()), UTF_8);
+      }
+      catch (IOException e)
+      {
+         // Missing or unreadable entry, the section is rendered again
+         return null;
+      }
+   }
+
+   /**
+    * Store the fragment. The entry is written to a temporary file first, so
+    * that a concurrent build never reads a partially written entry.
+    */
+   void store(String key, String fragment) throws IOException
+   {
+      cacheDir.mkdirs();
+      File file = getFile(key);
+      markUsed(file);
+      File tmp = File.createTempFile(file.getName(), ".tmp", cacheDir);
+      try
+      {
+         Files.write(tmp.toPath(), fragment.getBytes(UTF_8));
+         Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      finally
+      {
+         tmp.delete();
+      }
+   }
+
+   /**
+    * Remove the entries which were neither loaded nor stored since the cache was created
+    */
+   synchronized void prune()
+   {
+      File[] files = cacheDir.listFiles();
+      if (files == null)
+      {
+         return;
+      }
+      for (File file : files)
+      {
+         if (file.getName().endsWith(FRAGMENT_SUFFIX) && !used.contains(file.getName()))
+         {
+            file.delete();
+         }
+      }
+   }
+
+   private synchronized void markUsed(File file)
+   {
+      used.add(file.getName());
+   }
+
+   private File getFile(String key)
+   {
+      return new File(cacheDir, key + FRAGMENT_SUFFIX);
+   }
+
+   /**
+    * The key of a fragment, a SHA-256 hash of the values it is rendered from
+    */
+   static class Key
+   {
+      private final MessageDigest digest;
+
+      Key()
+      {
+         try
+         {
+            digest = MessageDigest.getInstance("SHA-256");
+         }
+         catch (NoSuchAlgorithmException e)
+         {
+            throw new IllegalStateException(e);
+         }
+      }
+
+      Key add(String value)
+      {
+         // Length prefixed, so that adjacent values can not be confused
+         if (value == null)
+         {
+            addInt(-1);
+         }
+         else
+         {
+            byte[] bytes = value.getBytes(UTF_8);
+            addInt(bytes.length);
+            digest.update(bytes);
+         }
+         return this;
+      }
+
+      Key add(boolean value)
+      {
+         digest.update((byte) (value ? 1 : 0));
+         return this;
+      }
+
+      Key addInt(int value)
+      {
+         digest.update((byte) (value >>> 24));
+         digest.update((byte) (value >>> 16));
+         digest.update((byte) (value >>> 8));
+         digest.update((byte) value);
+         return this;
+      }
+
+      /**
+       * @return the key as a hex string
+       */
+      String finish()
+      {
+         StringBuilder hex = new StringBuilder();
+         for (byte b : digest.digest())
+         {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+         }
+         return hex.toString();
+      }
+
+      /**
+       * @return the key as bytes, to be used as a salt
+       */
+      byte[] finishBytes()
+      {
+         return digest.digest();
+      }
+   }
+}
@@ -0,0 +1,194 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The section hierarchy of a spec, built once from the dotted section ids.
+ * Section "2.1" is a child of section "2", which is a child of the root.
+ * Intermediate nodes are created for sections that are not defined by the
+ * audit file, e.g. for "3" if only "3.1" is defined.
+ *
+ * <p>
+ * Children are ordered the same way as by {@link SectionIdComparator}, so a
+ * pre-order walk of the tree yields the section ids in report order.
+ * </p>
+ */
+public class SectionTree
+{
+
+   private static final Comparator<String> PART_COMPARATOR = new Comparator<String>()
+   {
+      @Override
+      public int compare(String part1, String part2)
+      {
+         Integer number1 = parse(part1);
+         Integer number2 = parse(part2);
+
+         if (number1 != null && number2 != null && !number1.equals(number2))
+         {
+            return number1.compareTo(number2);
+         }
+         return part1.compareTo(part2);
+      }
+
+      private Integer parse(String part)
+      {
+         if (part.isEmpty())
+         {
+            return 0;
+         }
+         try
+         {
+            return Integer.valueOf(part);
+         }
+         catch (NumberFormatException e)
+         {
+            return null;
+         }
+      }
+   };
+
+   /**
+    * A node of the section tree
+    */
+   public static class Node
+   {
+      private final Node parent;
+      private final int depth;
+      private final Map<String, Node> children = new TreeMap<String, Node>(PART_COMPARATOR);
+      private String sectionId;
+
+      private Node(Node parent)
+      {
+         this.parent = parent;
+         this.depth = parent != null ? parent.depth + 1 : 0;
+      }
+
+      /**
+       * @return the parent node, or null for the root
+       */
+      public Node getParent()
+      {
+         return parent;
+      }
+
+      /**
+       * @return the number of parts of the section id, e.g. 1 for chapters and 0 for the root
+       */
+      public int getDepth()
+      {
+         return depth;
+      }
+
+      /**
+       * @return the section id, or null if the audit file does not define this section
+       */
+      public String getSectionId()
+      {
+         return sectionId;
+      }
+
+      /**
+       * @return the child nodes in section id order
+       */
+      public Collection<Node> getChildren()
+      {
+         return Collections.unmodifiableCollection(children.values());
+      }
+   }
+
+   private final Node root = new Node(null);
+   private final Map<String, Node> nodes = new HashMap<String, Node>();
+   private final List<String> sectionIds;
+
+   public SectionTree(Collection<String> sectionIds)
+   {
+      for (String sectionId : sectionIds)
+      {
+         Node node = root;
+         for (String part : sectionId.split("[.]"))
+         {
+            Node child = node.children.get(part);
+            if (child == null)
+            {
+               child = new Node(node);
+               node.children.put(part, child);
+            }
+            node = child;
+         }
+         node.sectionId = sectionId;
+         nodes.put(sectionId, node);
+      }
+
+      List<String> ordered = new ArrayList<String>(nodes.size());
+      collectSectionIds(root, ordered);
+      this.sectionIds = Collections.unmodifiableList(ordered);
+   }
+
+   private void collectSectionIds(Node node, List<String> ordered)
+   {
+      if (node.sectionId != null)
+      {
+         ordered.add(node.sectionId);
+      }
+      for (Node child : node.children.values())
+      {
+         collectSectionIds(child, ordered);
+      }
+   }
+
+   public Node getRoot()
+   {
+      return root;
+   }
+
+   /**
+    * @param sectionId
+    * @return the node of the section, or null if there is no such section
+    */
+   public Node getNode(String sectionId)
+   {
+      return nodes.get(sectionId);
+   }
+
+   /**
+    * @return an unmodifiable list of all section ids in pre-order
+    */
+   public List<String> getSectionIds()
+   {
+      return sectionIds;
+   }
+
+   /**
+    * @param sectionId
+    * @return the number of parts of the section id, e.g. 1 for chapters
+    */
+   public int getDepth(String sectionId)
+   {
+      return nodes.get(sectionId).getDepth();
+   }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Renders the coverage of a spec as a table with one row per assertion, as
+ * comma separated (RFC 4180) or tab separated values. Each row is written as
+ * soon as its assertion is visited.
+ *
+ * <p>
+ * The covering tests of an assertion are written as a single value, the
+ * fully qualified test methods separated by spaces.
+ * </p>
+ */
+abstract class TableCoverageRenderer implements CoverageRenderer
+{
+   private static final String[] HEADER = { "section", "original_section", "assertion", "testable", "implied",
+         "status", "test_count", "tests" };
+
+   private final String format;
+   private final char separator;
+
+   TableCoverageRenderer(String format, char separator)
+   {
+      this.format = format;
+      this.separator = separator;
+   }
+
+   @Override
+   public String getFormat()
+   {
+      return format;
+   }
+
+   @Override
+   public String getFileName(String specId)
+   {
+      return "coverage-" + specId + "." + format;
+   }
+
+   @Override
+   public CoverageVisitor newVisitor(Writer out)
+   {
+      return new TableVisitor(out);
+   }
+
+   private class TableVisitor implements CoverageVisitor
+   {
+      private final Writer out;
+      private final StringBuilder tests = new StringBuilder();
+
+      TableVisitor(Writer out)
+      {
+         this.out = out;
+      }
+
+      @Override
+      public void beginSpec(CoverageModel model) throws IOException
+      {
+         for (int i = 0; i < HEADER.length; i++)
+         {
+            if (i > 0)
+            {
+               out.write(separator);
+            }
+            out.write(HEADER[i]);
+         }
+         out.write("\r\n");
+      }
+
+      @Override
+      public void visitChapter(CoverageModel.Chapter chapter)
+      {
+      }
+
+      @Override
+      public void beginSection(CoverageModel.Section section)
+      {
+      }
+
+      @Override
+      public void visitAssertion(CoverageModel.Section section, CoverageModel.Assertion assertion)
+            throws IOException
+      {
+         tests.setLength(0);
+         for (CoverageModel.Reference ref : assertion.getReferences())
+         {
+            if (tests.length() > 0)
+            {
+               tests.append(' ');
+            }
+            tests.append(ref.getFqn());
+         }
+
+         field(section.getId());
+         out.write(separator);
+         field(section.getOriginalId() != null ? section.getOriginalId() : section.getId());
+         out.write(separator);
+         field(assertion.getId());
+         out.write(separator);
+         out.write(Boolean.toString(assertion.isTestable()));
+         out.write(separator);
+         out.write(Boolean.toString(assertion.isImplied()));
+         out.write(separator);
+         out.write(assertion.getStatus().name());
+         out.write(separator);
+         out.write(Integer.toString(assertion.getReferences().size()));
+         out.write(separator);
+         field(tests.toString());
+         out.write("\r\n");
+      }
+
+      @Override
+      public void endSection(CoverageModel.Section section)
+      {
+      }
+
+      @Override
+      public void endSpec(CoverageModel model)
+      {
+      }
+
+      private void field(String value) throws IOException
+      {
+         if (value == null)
+         {
+            return;
+         }
+         if (separator == '\t')
+         {
+            // Tab separated values can not be quoted, so the separators are replaced
+            for (int i = 0; i < value.length(); i++)
+            {
+               char c = value.charAt(i);
+               out.write(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+            }
+         }
+         else if (value.indexOf(separator) >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+               || value.indexOf('\r') >= 0)
+         {
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+         }
+         else
+         {
+            out.write(value);
+         }
+      }
+   }
+}
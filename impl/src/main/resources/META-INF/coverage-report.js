@@ -0,0 +1,189 @@
+/*
+ * Renders the coverage detail of a data-driven TCK coverage report.
+ *
+ * The report page contains a placeholder for each section with assertions,
+ * and loads the coverage data, which calls renderCoverage(). A section is
+ * only rendered when its placeholder is about to be scrolled into view, or
+ * when it is the target of a link.
+ */
+(function () {
+
+   var ESTIMATED_ASSERTION_HEIGHT = 80;
+
+   var data;
+
+   function escapeHtml(value) {
+      return String(value).replace(/&/g, '&amp;').replace(/</g, '&lt;').replace(/>/g, '&gt;').replace(/"/g, '&quot;');
+   }
+
+   // Same rendering as MarkupRenderer: markers of each kind are paired from left to right,
+   // an unpaired last marker is kept, and the angle brackets are escaped
+   var MARKERS = {
+      '|': ['<span class="literal">', '</span>'],
+      '_': ['<span class="highlight">', '</span>'],
+      '~': ['<del>', '</del>']
+   };
+
+   function renderMarkup(text) {
+      var counts = { '|': 0, '_': 0, '~': 0 };
+      var seen = { '|': 0, '_': 0, '~': 0 };
+      var i, c, index, html = '';
+      for (i = 0; i < text.length; i++) {
+         c = text.charAt(i);
+         if (MARKERS.hasOwnProperty(c)) {
+            counts[c]++;
+         }
+      }
+      for (i = 0; i < text.length; i++) {
+         c = text.charAt(i);
+         if (c === '<') {
+            html += '&lt;';
+         } else if (c === '>') {
+            html += '&gt;';
+         } else if (MARKERS.hasOwnProperty(c)) {
+            index = seen[c]++;
+            if (index % 2 === 1) {
+               html += MARKERS[c][1];
+            } else if (index + 1 < counts[c]) {
+               html += MARKERS[c][0];
+            } else {
+               html += c;
+            }
+         } else {
+            html += c;
+         }
+      }
+      return html;
+   }
+
+   function renderLinks(packageName, className) {
+      var names = ['fisheye', 'svn', 'github'];
+      var path = packageName.replace(/\./g, '/') + '/' + className + '.java';
+      var links = [];
+      for (var i = 0; i < names.length; i++) {
+         if (data.links[names[i]]) {
+            links.push('<a class="external" target="_blank" href="' + escapeHtml(data.links[names[i]] + path) + '">'
+                  + names[i] + '</a>');
+         }
+      }
+      return links.join('|');
+   }
+
+   function renderReferences(references) {
+      var html = '', currentPackageName = null;
+      for (var i = 0; i < references.length; i++) {
+         var testClass = data.classes[references[i][0]];
+         if (testClass[0] !== currentPackageName) {
+            currentPackageName = testClass[0];
+            html += '<div class="packageName">' + escapeHtml(currentPackageName) + '</div>';
+         }
+         html += '<div class="description"> Test archive name: ' + testClass[2] + '</div>';
+         html += '<div class="coverageMethod">' + escapeHtml(testClass[1] + '.' + references[i][1]) + '()'
+               + renderLinks(testClass[0], testClass[1]) + '</div>';
+      }
+      return html;
+   }
+
+   function renderAssertion(assertion) {
+      var html = '<div class="' + assertion.s + '">';
+      if (assertion.implied) {
+         html += '<span class="implied">The following assertion is not made explicitly by the spec, however it is implied</span>';
+      }
+      html += '<span class="code">' + escapeHtml(assertion.id) + ')';
+      if (assertion.n) {
+         html += '<img title="' + escapeHtml(assertion.n) + '" alt="' + escapeHtml(assertion.n)
+               + '" src="images/stickynote.png" class="stickynote" width="20" height="20"/>';
+      }
+      html += '</span><div class="results"><p class="description">';
+      if (assertion.img) {
+         html += '<img src="images/' + escapeHtml(assertion.img) + '" class="embeddedImage"/>';
+      }
+      html += renderMarkup(assertion.t) + '</p>';
+
+      if (assertion.s !== 'untestable') {
+         html += '<div class="coverage"><p class="coverageHeader">Coverage</p>';
+         if (assertion.s === 'fail') {
+            html += '<p class="noCoverage">No tests exist for this assertion</p>';
+         } else {
+            html += renderReferences(assertion.r || []);
+         }
+         html += '</div>';
+      } else if (assertion.tested) {
+         html += '<b>A test exists for this untestable assertion!</b>';
+      }
+      return html + '</div></div>';
+   }
+
+   function renderSection(placeholder) {
+      if (placeholder.getAttribute('data-rendered')) {
+         return;
+      }
+      placeholder.setAttribute('data-rendered', 'true');
+
+      var section = data.sections[parseInt(placeholder.getAttribute('data-section'), 10)];
+      var html = '<h4 class="sectionHeader">Section ' + escapeHtml(section.id) + ' - ' + escapeHtml(section.title);
+      if (section.original) {
+         html += ' <sup>[';
+         html += data.links.specification ? '<a href="' + escapeHtml(data.links.specification + '#' + section.original)
+               + '">' + escapeHtml(section.original) + '</a>' : escapeHtml(section.original);
+         html += ']</sup>';
+      }
+      html += '</h4>';
+
+      for (var i = 0; i < section.items.length; i++) {
+         var item = section.items[i];
+         if (item.g !== undefined) {
+            html += '<div class="group"><p class="description">' + renderMarkup(item.g) + '</p><div class="groupAssertions">';
+            for (var j = 0; j < item.a.length; j++) {
+               html += renderAssertion(item.a[j]);
+            }
+            html += '</div></div>';
+         } else {
+            html += renderAssertion(item);
+         }
+      }
+      placeholder.innerHTML = html;
+      placeholder.style.minHeight = '';
+   }
+
+   function renderTarget() {
+      var target = window.location.hash ? document.getElementById(decodeURIComponent(window.location.hash.substring(1))) : null;
+      if (target && target.getAttribute('data-section') !== null) {
+         renderSection(target);
+         target.scrollIntoView();
+      }
+   }
+
+   window.renderCoverage = function (payload) {
+      data = payload;
+      var placeholders = document.querySelectorAll('div.lazySection');
+      var i;
+
+      if (!('IntersectionObserver' in window)) {
+         for (i = 0; i < placeholders.length; i++) {
+            renderSection(placeholders[i]);
+         }
+         return;
+      }
+
+      var observer = new IntersectionObserver(function (entries) {
+         for (var k = 0; k < entries.length; k++) {
+            if (entries[k].isIntersecting) {
+               observer.unobserve(entries[k].target);
+               renderSection(entries[k].target);
+            }
+         }
+      }, { rootMargin: '1000px 0px' });
+
+      for (i = 0; i < placeholders.length; i++) {
+         // Reserve roughly the rendered height, so that only the sections near the viewport are rendered
+         placeholders[i].style.minHeight = (parseInt(placeholders[i].getAttribute('data-assertions'), 10)
+               * ESTIMATED_ASSERTION_HEIGHT) + 'px';
+         observer.observe(placeholders[i]);
+      }
+
+      renderTarget();
+      window.addEventListener('hashchange', renderTarget);
+   };
+
+})();
@@ -0,0 +1,82 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.security.MessageDigest;
+import java.util.Properties;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ArchiveNames}.
+ */
+public class ArchiveNamesTest {
+
+	@Test
+	public void testArchiveName() throws Exception {
+		ArchiveNames archiveNames = new ArchiveNames();
+		String fqn = "org.jboss.test.BeanTypesTest";
+
+		String name = archiveNames.get(fqn);
+		assertEquals(expectedName(fqn), name);
+		assertSame(name, archiveNames.get(fqn));
+		assertEquals(expectedName("org.jboss.test.ConceptsTest"),
+				archiveNames.get("org.jboss.test.ConceptsTest"));
+	}
+
+	@Test
+	public void testManifest() throws Exception {
+		ArchiveNames archiveNames = new ArchiveNames();
+		archiveNames.get("org.jboss.test.b.SecondTest");
+		archiveNames.get("org.jboss.test.a.FirstTest");
+
+		File manifest = File.createTempFile("coverage", "-archives.properties");
+		try {
+			archiveNames.writeManifest(manifest);
+
+			Properties properties = new Properties();
+			FileInputStream in = new FileInputStream(manifest);
+			try {
+				properties.load(in);
+			} finally {
+				in.close();
+			}
+			assertEquals(2, properties.size());
+			assertEquals(expectedName("org.jboss.test.a.FirstTest"),
+					properties.getProperty("org.jboss.test.a.FirstTest"));
+			assertEquals(expectedName("org.jboss.test.b.SecondTest"),
+					properties.getProperty("org.jboss.test.b.SecondTest"));
+		} finally {
+			manifest.delete();
+		}
+	}
+
+	private static String expectedName(String fqn) throws Exception {
+		byte[] digest = MessageDigest.getInstance("SHA-1").digest(fqn.getBytes());
+		StringBuilder hexString = new StringBuilder();
+		for (int i = 0; i < digest.length; i++) {
+			hexString.append(Integer.toHexString(0xFF & digest[i]));
+		}
+		return hexString.toString();
+	}
+
+}
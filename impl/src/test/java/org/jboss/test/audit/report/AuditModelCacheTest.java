@@ -0,0 +1,200 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jboss.test.audit.config.RuntimeProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AuditModelCache}.
+ */
+public class AuditModelCacheTest {
+
+	private File cacheDir;
+
+	@Before
+	public void createCacheDir() throws IOException {
+		cacheDir = File.createTempFile("audit-cache", "");
+		cacheDir.delete();
+		cacheDir.mkdirs();
+	}
+
+	@After
+	public void deleteCacheDir() {
+		for (File file : cacheDir.listFiles()) {
+			file.delete();
+		}
+		cacheDir.delete();
+	}
+
+	@Test
+	public void testRoundTripWithGeneratedSectionIds() throws Exception {
+		assertRoundTrip(readResource("/tck-audit-coverage-report.xml"));
+	}
+
+	@Test
+	public void testRoundTripWithGroups() throws Exception {
+		assertRoundTrip(readResource("/tck-audit-section-class-generator.xml"));
+	}
+
+	@Test
+	public void testRoundTripLargeSyntheticAudit() throws Exception {
+		assertRoundTrip(AuditParserStreamingTest.generateSyntheticAudit());
+	}
+
+	@Test
+	public void testRestoredIndexes() throws Exception {
+		byte[] content = readResource("/tck-audit-coverage-report.xml");
+		byte[] hash = AuditModelCache.hash(content);
+		AuditModelCache cache = new AuditModelCache(cacheDir);
+		cache.store(hash, parse(content));
+
+		AuditParser restored = cache.load(hash);
+		assertTrue(restored.hasAssertion("concepts", "a"));
+		assertEquals("2.2", restored.getAssertion("bean_types", "l")
+				.getSection());
+	}
+
+	@Test
+	public void testMissingAndChangedContent() throws Exception {
+		byte[] content = readResource("/tck-audit-coverage-report.xml");
+		AuditModelCache cache = new AuditModelCache(cacheDir);
+		assertNull(cache.load(AuditModelCache.hash(content)));
+
+		cache.store(AuditModelCache.hash(content), parse(content));
+		assertNotNull(cache.load(AuditModelCache.hash(content)));
+
+		byte[] changed = readResource("/tck-audit-coverage-report-old.xml");
+		assertNull(cache.load(AuditModelCache.hash(changed)));
+	}
+
+	@Test
+	public void testCorruptEntryIsIgnored() throws Exception {
+		byte[] content = readResource("/tck-audit-coverage-report.xml");
+		byte[] hash = AuditModelCache.hash(content);
+		AuditModelCache cache = new AuditModelCache(cacheDir);
+		cache.store(hash, parse(content));
+
+		FileOutputStream out = new FileOutputStream(cache.getFile(hash));
+		out.write(new byte[] { 0x54, 0x43, 0x4b, 0x41, 0, 0 });
+		out.close();
+
+		assertNull(cache.load(hash));
+	}
+
+	@Test
+	public void testCorruptLengthsAreIgnored() throws Exception {
+		byte[] content = readResource("/tck-audit-coverage-report.xml");
+		byte[] hash = AuditModelCache.hash(content);
+		AuditModelCache cache = new AuditModelCache(cacheDir);
+
+		// Negative hash length
+		writeEntry(cache.getFile(hash), -1, hash, Integer.MAX_VALUE);
+		assertNull(cache.load(hash));
+
+		// Hash length which does not match
+		writeEntry(cache.getFile(hash), Integer.MAX_VALUE, hash,
+				Integer.MAX_VALUE);
+		assertNull(cache.load(hash));
+
+		// String lengths longer than the entry and negative
+		writeEntry(cache.getFile(hash), hash.length, hash, Integer.MAX_VALUE);
+		assertNull(cache.load(hash));
+		writeEntry(cache.getFile(hash), hash.length, hash, -2);
+		assertNull(cache.load(hash));
+	}
+
+	@Test
+	public void testPruneRemovesUnusedEntries() throws Exception {
+		byte[] content = readResource("/tck-audit-coverage-report.xml");
+		byte[] changed = readResource("/tck-audit-coverage-report-old.xml");
+		AuditModelCache cache = new AuditModelCache(cacheDir);
+		cache.store(AuditModelCache.hash(content), parse(content));
+		cache.store(AuditModelCache.hash(changed), parse(changed));
+
+		File unrelated = new File(cacheDir, "unrelated.txt");
+		unrelated.createNewFile();
+
+		cache = new AuditModelCache(cacheDir);
+		assertNotNull(cache.load(AuditModelCache.hash(changed)));
+		cache.prune();
+
+		assertFalse(cache.getFile(AuditModelCache.hash(content)).exists());
+		assertTrue(cache.getFile(AuditModelCache.hash(changed)).isFile());
+		assertTrue(unrelated.isFile());
+	}
+
+	private void writeEntry(File file, int hashLength, byte[] hash,
+			int nameLength) throws IOException {
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		try {
+			out.writeInt(0x54434b41);
+			out.writeInt(1);
+			out.writeInt(hashLength);
+			out.write(hash);
+			out.writeInt(nameLength);
+		} finally {
+			out.close();
+		}
+	}
+
+	private void assertRoundTrip(byte[] content) throws Exception {
+		byte[] hash = AuditModelCache.hash(content);
+		AuditModelCache cache = new AuditModelCache(cacheDir);
+		AuditParser parsed = parse(content);
+		cache.store(hash, parsed);
+		AuditParserStreamingTest.assertSameModel(parsed, cache.load(hash));
+	}
+
+	private AuditParser parse(byte[] content) throws Exception {
+		return new AuditParser(new ByteArrayInputStream(content),
+				new RuntimeProperties()).parse();
+	}
+
+	private byte[] readResource(String name) throws IOException {
+		InputStream in = this.getClass().getResourceAsStream(name);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read = in.read(buffer);
+			while (read != -1) {
+				out.write(buffer, 0, read);
+				read = in.read(buffer);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.jboss.test.audit.config.RuntimeProperties;
+
+/**
+ * Compares the heap and time of the DOM based {@link AuditParser#parse()} and
+ * the streaming {@link AuditParser#parseStreaming()} on the large synthetic
+ * audit file of {@link AuditParserStreamingTest}. It only reports the
+ * measurements and is not part of the unit tests; run it with the test class
+ * path:
+ *
+ * <pre>
+ * java -cp ... org.jboss.test.audit.report.AuditParserBenchmark [iterations]
+ * </pre>
+ */
+public class AuditParserBenchmark {
+
+	private static final int WARM_UP_ITERATIONS = 5;
+
+	private interface Parse {
+		AuditParser parse(byte[] audit) throws Exception;
+	}
+
+	private static final Parse DOM = new Parse() {
+		@Override
+		public AuditParser parse(byte[] audit) throws Exception {
+			return new AuditParser(new ByteArrayInputStream(audit),
+					new RuntimeProperties()).parse();
+		}
+	};
+
+	private static final Parse STAX = new Parse() {
+		@Override
+		public AuditParser parse(byte[] audit) throws Exception {
+			return new AuditParser(new ByteArrayInputStream(audit),
+					new RuntimeProperties()).parseStreaming();
+		}
+	};
+
+	public static void main(String[] args) throws Exception {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		byte[] audit = AuditParserStreamingTest.generateSyntheticAudit();
+
+		for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+			DOM.parse(audit);
+			STAX.parse(audit);
+		}
+
+		System.out.println(String.format(
+				"Synthetic audit of %d bytes, %d iterations", audit.length,
+				iterations));
+		measure("DOM ", DOM, audit, iterations);
+		measure("StAX", STAX, audit, iterations);
+	}
+
+	/**
+	 * Print the average time and allocated bytes of one parse, and the heap
+	 * retained by the parsed model
+	 */
+	private static void measure(String name, Parse parse, byte[] audit,
+			int iterations) throws Exception {
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			parse.parse(audit);
+		}
+		long time = System.nanoTime() - start;
+		allocated = allocatedBytes() - allocated;
+
+		long before = usedHeap();
+		AuditParser model = parse.parse(audit);
+		long retained = usedHeap() - before;
+
+		System.out.println(String.format(
+				"%s: %8.2f ms, %12d bytes allocated, %12d bytes retained by %d sections",
+				name, time / 1000000.0 / iterations, allocated / iterations,
+				retained, model.getSectionIds().size()));
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread so far, or 0 if the
+	 *         JVM does not support allocation measurement
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threadBean)
+					.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
@@ -0,0 +1,186 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import org.jboss.test.audit.config.RuntimeProperties;
+import org.junit.Test;
+
+/**
+ * Verifies that {@link AuditParser#parseStreaming()} builds the same model as
+ * the DOM based {@link AuditParser#parse()}, including on a large synthetic
+ * audit file. Their heap and time are compared by {@link AuditParserBenchmark}.
+ */
+public class AuditParserStreamingTest {
+
+	private static final int CHAPTERS = 20;
+	private static final int SECTIONS_PER_CHAPTER = 25;
+	private static final int ASSERTIONS_PER_SECTION = 40;
+
+	@Test
+	public void testIdenticalModelForGeneratedSectionIds() throws Exception {
+		assertSameModel(dom("/tck-audit-coverage-report.xml"),
+				streaming("/tck-audit-coverage-report.xml"));
+	}
+
+	@Test
+	public void testIdenticalModelForPlainSectionIds() throws Exception {
+		assertSameModel(dom("/tck-audit-coverage-report-old.xml"),
+				streaming("/tck-audit-coverage-report-old.xml"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testInvalidAuditXml() throws Exception {
+		streaming("/tck-audit-coverage-report-invalid.xml");
+	}
+
+	@Test
+	public void testIdenticalModelForLargeSyntheticAudit() throws Exception {
+		byte[] audit = generateSyntheticAudit();
+
+		AuditParser dom = new AuditParser(new ByteArrayInputStream(audit),
+				new RuntimeProperties()).parse();
+		AuditParser streaming = new AuditParser(new ByteArrayInputStream(
+				audit), new RuntimeProperties()).parseStreaming();
+
+		assertEquals(CHAPTERS * (SECTIONS_PER_CHAPTER + 1), streaming
+				.getSectionIds().size());
+		assertSameModel(dom, streaming);
+	}
+
+	private AuditParser dom(String resource) throws Exception {
+		return new AuditParser(this.getClass().getResourceAsStream(resource),
+				new RuntimeProperties()).parse();
+	}
+
+	private AuditParser streaming(String resource) throws Exception {
+		return new AuditParser(this.getClass().getResourceAsStream(resource),
+				new RuntimeProperties()).parseStreaming();
+	}
+
+	static byte[] generateSyntheticAudit() throws Exception {
+		StringBuilder xml = new StringBuilder();
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		xml.append("<!-- Synthetic audit -->\n");
+		xml.append("<specification xmlns=\"http://jboss.com/products/weld/tck/audit\" name=\"Synthetic\" id=\"synthetic\" version=\"1.0\" generateSectionIds=\"true\">\n");
+		for (int c = 0; c < CHAPTERS; c++) {
+			xml.append("  <section id=\"chapter_").append(c)
+					.append("\" title=\"Chapter ").append(c)
+					.append("\" level=\"1\"/>\n");
+			for (int s = 0; s < SECTIONS_PER_CHAPTER; s++) {
+				xml.append("  <section id=\"section_").append(c).append("_")
+						.append(s).append("\" title=\"Section &amp; ")
+						.append(s).append("\" level=\"2\">\n");
+				for (int a = 0; a < ASSERTIONS_PER_SECTION; a++) {
+					boolean grouped = a % 10 >= 7;
+					if (a % 10 == 7) {
+						xml.append("    <group>\n");
+						xml.append("      <text>Group _text_ &lt;").append(a)
+								.append("&gt;</text>\n");
+					}
+					xml.append("    <assertion id=\"a").append(a).append("\"");
+					if (a % 13 == 0) {
+						xml.append(" testable=\"false\"");
+					}
+					if (a % 17 == 0) {
+						xml.append(" implied=\"true\"");
+					}
+					xml.append(">\n");
+					xml.append("      <text>The |container| must ~not~ do _something_ number ")
+							.append(a).append("<![CDATA[ <cdata> ]]></text>\n");
+					if (a % 5 == 0) {
+						xml.append("      <note>Note ").append(a)
+								.append("</note>\n");
+					}
+					xml.append("    </assertion>\n");
+					if (grouped && a % 10 == 9) {
+						xml.append("    </group>\n");
+					}
+				}
+				xml.append("  </section>\n");
+			}
+		}
+		xml.append("</specification>\n");
+		return xml.toString().getBytes("UTF-8");
+	}
+
+	static void assertSameModel(AuditParser expected, AuditParser actual) {
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getSpecId(), actual.getSpecId());
+		assertEquals(expected.getVersion(), actual.getVersion());
+		assertEquals(expected.hasSectionIdsGenerated(),
+				actual.hasSectionIdsGenerated());
+		assertEquals(expected.getSectionIds(), actual.getSectionIds());
+
+		for (String sectionId : expected.getSectionIds()) {
+			assertEquals(expected.getSectionTitle(sectionId),
+					actual.getSectionTitle(sectionId));
+			assertEquals(expected.getSectionOriginalId(sectionId),
+					actual.getSectionOriginalId(sectionId));
+
+			List<SectionItem> expectedItems = expected
+					.getItemsForSection(sectionId);
+			List<SectionItem> actualItems = actual
+					.getItemsForSection(sectionId);
+			assertEquals(expectedItems.size(), actualItems.size());
+
+			for (int i = 0; i < expectedItems.size(); i++) {
+				SectionItem expectedItem = expectedItems.get(i);
+				SectionItem actualItem = actualItems.get(i);
+				assertEquals(expectedItem.getClass(), actualItem.getClass());
+				assertEquals(expectedItem.getSection(),
+						actualItem.getSection());
+				assertEquals(expectedItem.getText(), actualItem.getText());
+
+				if (expectedItem instanceof AssertionGroup) {
+					List<AuditAssertion> expectedAssertions = ((AssertionGroup) expectedItem)
+							.getAssertions();
+					List<AuditAssertion> actualAssertions = ((AssertionGroup) actualItem)
+							.getAssertions();
+					assertEquals(expectedAssertions.size(),
+							actualAssertions.size());
+					for (int j = 0; j < expectedAssertions.size(); j++) {
+						assertSameAssertion(expectedAssertions.get(j),
+								actualAssertions.get(j));
+						assertTrue(actualAssertions.get(j).getGroup() == actualItem);
+					}
+				} else {
+					assertSameAssertion((AuditAssertion) expectedItem,
+							(AuditAssertion) actualItem);
+					assertNull(((AuditAssertion) actualItem).getGroup());
+				}
+			}
+		}
+	}
+
+	private static void assertSameAssertion(AuditAssertion expected,
+			AuditAssertion actual) {
+		assertEquals(expected.getSection(), actual.getSection());
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.getText(), actual.getText());
+		assertEquals(expected.getNote(), actual.getNote());
+		assertEquals(expected.isTestable(), actual.isTestable());
+		assertEquals(expected.isImplied(), actual.isImplied());
+	}
+
+}
@@ -17,6 +17,8 @@
 package org.jboss.test.audit.report;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -60,4 +62,58 @@ public class AuditParserTest {
 		assertTrue(parser.hasAssertion("concepts", "a"));
 	}
 
+	@Test
+	public void testGetAssertion() throws Exception {
+		AuditParser parser = new AuditParser(this.getClass()
+				.getResourceAsStream("/tck-audit-coverage-report.xml"),
+				new RuntimeProperties()).parse();
+		AuditAssertion assertion = parser.getAssertion("bean_types", "l");
+		assertEquals("2.2", assertion.getSection());
+		assertEquals("l", assertion.getId());
+		assertFalse(parser.getAssertion("concepts", "h").isTestable());
+		assertNull(parser.getAssertion("concepts", "x"));
+		assertNull(parser.getAssertion("2.2", "l"));
+		assertFalse(parser.hasAssertion("unknown", "a"));
+	}
+
+	@Test
+	public void testGetAssertionInGroup() throws Exception {
+		AuditParser parser = new AuditParser(this.getClass()
+				.getResourceAsStream("/tck-audit-section-class-generator.xml"),
+				new RuntimeProperties()).parse();
+		for (String sectionId : parser.getSectionIds()) {
+			for (AuditAssertion assertion : parser.getAssertionsForSection(sectionId)) {
+				String originalId = parser.hasSectionIdsGenerated() ? parser
+						.getSectionOriginalId(sectionId) : sectionId;
+				assertTrue(parser.hasAssertion(originalId, assertion.getId()));
+			}
+		}
+	}
+
+	@Test
+	public void testFlattenedAssertionViews() throws Exception {
+		AuditParser parser = new AuditParser(this.getClass()
+				.getResourceAsStream("/tck-audit-section-class-generator.xml"),
+				new RuntimeProperties()).parse();
+		for (String sectionId : parser.getSectionIds()) {
+			int expected = 0;
+			for (SectionItem item : parser.getItemsForSection(sectionId)) {
+				expected += item instanceof AssertionGroup ? ((AssertionGroup) item)
+						.getAssertions().size() : 1;
+			}
+			assertEquals(expected, parser.getAssertionsForSection(sectionId).size());
+			assertTrue(parser.getAssertionsForSection(sectionId) == parser
+					.getAssertionsForSection(sectionId));
+		}
+		assertTrue(parser.getAssertionsForSection("unknown").isEmpty());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testItemsForSectionAreReadOnly() throws Exception {
+		AuditParser parser = new AuditParser(this.getClass()
+				.getResourceAsStream("/tck-audit-coverage-report.xml"),
+				new RuntimeProperties()).parse();
+		parser.getItemsForSection("2").clear();
+	}
+
 }
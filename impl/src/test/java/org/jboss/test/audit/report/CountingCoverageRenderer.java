@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Renderer registered for the tests, which writes the number of chapters, sections and assertions it visited.
+ */
+public class CountingCoverageRenderer implements CoverageRenderer {
+
+	public static final String FORMAT = "counts";
+
+	@Override
+	public String getFormat() {
+		return FORMAT;
+	}
+
+	@Override
+	public String getFileName(String specId) {
+		return "coverage-" + specId + "-counts.txt";
+	}
+
+	@Override
+	public CoverageVisitor newVisitor(final Writer out) {
+		return new CoverageVisitor() {
+
+			private int chapters;
+			private int sections;
+			private int assertions;
+
+			@Override
+			public void beginSpec(CoverageModel model) {
+			}
+
+			@Override
+			public void visitChapter(CoverageModel.Chapter chapter) {
+				chapters++;
+			}
+
+			@Override
+			public void beginSection(CoverageModel.Section section) {
+				sections++;
+			}
+
+			@Override
+			public void visitAssertion(CoverageModel.Section section, CoverageModel.Assertion assertion) {
+				assertions++;
+			}
+
+			@Override
+			public void endSection(CoverageModel.Section section) {
+			}
+
+			@Override
+			public void endSpec(CoverageModel model) throws IOException {
+				out.write(model.getSpecId() + " " + chapters + " " + sections + " " + assertions);
+			}
+		};
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link CoverageHistory}.
+ */
+public class CoverageHistoryTest {
+
+	@Test
+	public void testReadLast() throws Exception {
+		File file = File.createTempFile("coverage", ".history");
+		file.delete();
+		try {
+			CoverageHistory history = new CoverageHistory(file, "cdi");
+			assertTrue(history.readLast(5).isEmpty());
+
+			for (int i = 1; i <= 3; i++) {
+				history.append(createRecord(i));
+			}
+
+			List<CoverageHistory.Record> records = history.readLast(2);
+			assertEquals(2, records.size());
+			assertEquals(2, records.get(0).getTimestamp());
+			assertEquals(3, records.get(1).getTimestamp());
+
+			CoverageHistory.Record record = history.readLast(5).get(0);
+			assertEquals(1, record.getTimestamp());
+			assertEquals("1.0", record.getVersion());
+			assertEquals(10, record.getTotal().getTestable());
+			assertEquals(1, record.getChapter("2").getImplemented());
+			assertEquals(4, record.getSection("2.1").getTestCount());
+			assertNull(record.getChapter("3"));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testPartialRecordIsTruncated() throws Exception {
+		File file = File.createTempFile("coverage", ".history");
+		file.delete();
+		try {
+			CoverageHistory history = new CoverageHistory(file, "cdi");
+			history.append(createRecord(1));
+			long firstEnd = file.length();
+
+			// A build killed while appending a record
+			FileOutputStream out = new FileOutputStream(file, true);
+			try {
+				out.write(new byte[] { 1, 2, 3 });
+			} finally {
+				out.close();
+			}
+
+			history.append(createRecord(2));
+			assertEquals(2 * firstEnd, file.length());
+			assertFalse(new File(file.getPath() + ".corrupt").exists());
+			List<CoverageHistory.Record> records = history.readLast(5);
+			assertEquals(2, records.size());
+			assertEquals(1, records.get(0).getTimestamp());
+			assertEquals(2, records.get(1).getTimestamp());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testCorruptOldRecordIsDropped() throws Exception {
+		File file = File.createTempFile("coverage", ".history");
+		file.delete();
+		try {
+			CoverageHistory history = new CoverageHistory(file, "cdi");
+			history.append(createRecord(1));
+			long firstEnd = file.length();
+			history.append(createRecord(2));
+			history.append(createRecord(3));
+			long length = file.length();
+
+			// Damage the trailer of the first record
+			RandomAccessFile out = new RandomAccessFile(file, "rw");
+			try {
+				out.seek(firstEnd - 4);
+				out.writeInt(0);
+			} finally {
+				out.close();
+			}
+
+			List<CoverageHistory.Record> records = history.readLast(5);
+			assertEquals(2, records.size());
+			assertEquals(2, records.get(0).getTimestamp());
+			assertEquals(3, records.get(1).getTimestamp());
+			assertEquals(length - firstEnd, file.length());
+
+			history.append(createRecord(4));
+			records = history.readLast(5);
+			assertEquals(3, records.size());
+			assertEquals(2, records.get(0).getTimestamp());
+			assertEquals(3, records.get(1).getTimestamp());
+			assertEquals(4, records.get(2).getTimestamp());
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static CoverageHistory.Record createRecord(int timestamp) {
+		Map<String, CoverageStatistics.Counters> chapters = new LinkedHashMap<String, CoverageStatistics.Counters>();
+		chapters.put("2", new CoverageStatistics.Counters(5, 4, 3, timestamp, 0));
+		Map<String, CoverageStatistics.Counters> sections = new LinkedHashMap<String, CoverageStatistics.Counters>();
+		sections.put("2", new CoverageStatistics.Counters(1, 1, 0, 0, 0));
+		sections.put("2.1", new CoverageStatistics.Counters(4, 3, 4, timestamp, 0));
+		return new CoverageHistory.Record(timestamp, "1.0", new CoverageStatistics.Counters(12, 10, 8, 6, 1),
+				chapters, sections);
+	}
+}
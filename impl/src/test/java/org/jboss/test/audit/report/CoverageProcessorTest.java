@@ -0,0 +1,280 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.jboss.test.audit.annotations.SpecAssertion;
+import org.jboss.test.audit.config.PropertyKeys;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs {@link CoverageProcessor} in javac, so that the diagnostics it reports
+ * through the {@link javax.annotation.processing.Messager} are collected.
+ */
+public class CoverageProcessorTest {
+
+	private static final String TEST_SOURCE = "package org.jboss.test;\n"
+			+ "import org.jboss.test.audit.annotations.SpecAssertion;\n"
+			+ "import org.jboss.test.audit.annotations.SpecVersion;\n"
+			+ "@SpecVersion(spec = \"cdi\", version = \"20091101\")\n"
+			+ "public class GateTest {\n"
+			+ "  @SpecAssertion(section = \"2.2\", id = \"l\")\n"
+			+ "  public void test() {}\n" + "}\n";
+
+	private File outputDir;
+
+	@Before
+	public void createOutputDir() throws Exception {
+		outputDir = File.createTempFile("coverage", "");
+		outputDir.delete();
+		outputDir.mkdirs();
+	}
+
+	@After
+	public void cleanUp() {
+		System.clearProperty(PropertyKeys.COVERAGE_GATE);
+		System.clearProperty(PropertyKeys.FAIL_THRESHOLD);
+		deleteRecursively(outputDir);
+	}
+
+	@Test
+	public void testGateFailsTheBuild() throws Exception {
+		System.setProperty(PropertyKeys.COVERAGE_GATE, "true");
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+
+		assertFalse(compile(diagnostics));
+
+		List<String> errors = getMessages(diagnostics, Diagnostic.Kind.ERROR);
+		assertEquals(1, errors.size());
+		assertTrue(errors.get(0).startsWith("[cdi] Total coverage "));
+		assertTrue(new File(outputDir, "coverage-cdi-gate.properties").isFile());
+		assertFalse(new File(outputDir, "coverage-cdi.html").exists());
+	}
+
+	@Test
+	public void testGateWarnings() throws Exception {
+		System.setProperty(PropertyKeys.COVERAGE_GATE, "true");
+		System.setProperty(PropertyKeys.FAIL_THRESHOLD, "0");
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+
+		assertTrue(compile(diagnostics));
+
+		assertTrue(getMessages(diagnostics, Diagnostic.Kind.ERROR).isEmpty());
+		List<String> warnings = getMessages(diagnostics, Diagnostic.Kind.WARNING);
+		assertEquals(1, warnings.size());
+		assertTrue(warnings.get(0).startsWith("[cdi] Total coverage "));
+		assertFalse(new File(outputDir, "coverage-cdi.html").exists());
+	}
+
+	@Test
+	public void testReportWithoutGate() throws Exception {
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+
+		assertTrue(compile(diagnostics));
+
+		assertTrue(getMessages(diagnostics, Diagnostic.Kind.ERROR).isEmpty());
+		assertTrue(new File(outputDir, "coverage-cdi.html").isFile());
+		assertFalse(new File(outputDir, "coverage-cdi-gate.properties").exists());
+	}
+
+	@Test
+	public void testAuditFilesKeepTheirOrder() throws Exception {
+		// The first file is the largest, so that it is the last to be parsed
+		File first = new File(outputDir, "first.xml");
+		Files.write(first.toPath(),
+				AuditParserStreamingTest.generateSyntheticAudit());
+		File second = writeAudit("second.xml", createAudit("zeta"));
+		File third = writeAudit("third.xml", createAudit("alpha"));
+		CoverageProcessor processor = new CoverageProcessor();
+
+		assertTrue(compile(new DiagnosticCollector<JavaFileObject>(),
+				processor, first, second, third));
+
+		assertEquals(Arrays.asList("synthetic", "zeta", "alpha"),
+				new ArrayList<String>(processor.getAuditParsers().keySet()));
+	}
+
+	@Test
+	public void testAuditFileFailuresAreAggregated() throws Exception {
+		File valid = writeAudit("valid.xml", createAudit("alpha"));
+		File first = writeAudit("first.xml", "<specification id=\"broken\"");
+		File second = writeAudit("second.xml", "not an audit file");
+
+		try {
+			compile(new DiagnosticCollector<JavaFileObject>(),
+					new CoverageProcessor(), valid, first, second);
+			fail();
+		} catch (RuntimeException e) {
+			Throwable failure = findFailure(e, "Unable to parse audit file - ");
+			assertEquals("Unable to parse audit file - "
+					+ first.getAbsolutePath(), failure.getMessage());
+			assertEquals(1, failure.getSuppressed().length);
+			assertEquals("Unable to parse audit file - "
+					+ second.getAbsolutePath(),
+					failure.getSuppressed()[0].getMessage());
+		}
+	}
+
+	@Test
+	public void testReportFailuresAreAggregated() throws Exception {
+		File alpha = writeAudit("alpha.xml", createAudit("alpha"));
+		File beta = writeAudit("beta.xml", createAudit("beta"));
+		File gamma = writeAudit("gamma.xml", createAudit("gamma"));
+		// A directory in place of their report makes the reports of alpha and gamma fail
+		new File(outputDir, "coverage-alpha.html").mkdirs();
+		new File(outputDir, "coverage-gamma.html").mkdirs();
+
+		try {
+			compile(new DiagnosticCollector<JavaFileObject>(),
+					new CoverageProcessor(), alpha, beta, gamma);
+			fail();
+		} catch (RuntimeException e) {
+			Throwable failure = findFailure(e, "[alpha] ");
+			assertEquals("[alpha] Unable to generate coverage report",
+					failure.getMessage());
+			assertEquals(1, failure.getSuppressed().length);
+			assertEquals("[gamma] Unable to generate coverage report",
+					failure.getSuppressed()[0].getMessage());
+		}
+		assertTrue(new File(outputDir, "coverage-beta.html").isFile());
+	}
+
+	private boolean compile(DiagnosticCollector<JavaFileObject> diagnostics)
+			throws Exception {
+		File auditFile = new File(this.getClass()
+				.getResource("/tck-audit-coverage-report-old.xml").toURI());
+		return compile(diagnostics, new CoverageProcessor(), auditFile);
+	}
+
+	private boolean compile(DiagnosticCollector<JavaFileObject> diagnostics,
+			CoverageProcessor processor, File... auditFiles) throws Exception {
+		File annotations = new File(SpecAssertion.class.getProtectionDomain()
+				.getCodeSource().getLocation().toURI());
+		StringBuilder auditXml = new StringBuilder();
+		for (File auditFile : auditFiles) {
+			if (auditXml.length() > 0) {
+				auditXml.append(',');
+			}
+			auditXml.append(auditFile.getPath());
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		CompilationTask task = compiler.getTask(null, null, diagnostics,
+				Arrays.asList("-proc:only", "-classpath", annotations.getPath(),
+						"-AauditXml=" + auditXml, "-AoutputDir="
+								+ outputDir.getPath()), null, Arrays
+						.asList(new JavaSourceFromString("GateTest.java",
+								TEST_SOURCE)));
+		task.setProcessors(Arrays.asList(processor));
+		return task.call();
+	}
+
+	/**
+	 * @return an audit file of the spec with a single assertion
+	 */
+	static String createAudit(String specId) {
+		return "<specification xmlns=\"http://jboss.com/products/weld/tck/audit\" name=\"Spec "
+				+ specId + "\" id=\"" + specId + "\" version=\"1.0\">\n"
+				+ "  <section id=\"1\" title=\"Chapter\">\n"
+				+ "    <assertion id=\"a\"><text>Assertion</text></assertion>\n"
+				+ "  </section>\n" + "</specification>\n";
+	}
+
+	private File writeAudit(String name, String content) throws Exception {
+		File file = new File(outputDir, name);
+		Files.write(file.toPath(), content.getBytes("UTF-8"));
+		return file;
+	}
+
+	/**
+	 * @return the exception of the processor, which javac may have wrapped
+	 */
+	private static Throwable findFailure(Throwable e, String messagePrefix) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause.getMessage() != null
+					&& cause.getMessage().startsWith(messagePrefix)) {
+				return cause;
+			}
+		}
+		throw new AssertionError("No failure " + messagePrefix + " in " + e);
+	}
+
+	/**
+	 * @return the messages of the processor with the kind
+	 */
+	private static List<String> getMessages(
+			DiagnosticCollector<JavaFileObject> diagnostics,
+			Diagnostic.Kind kind) {
+		List<String> messages = new ArrayList<String>();
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics
+				.getDiagnostics()) {
+			// Diagnostics of javac itself, e.g. on the supported source version, are left out
+			String message = diagnostic.getMessage(null);
+			if (diagnostic.getKind() == kind && message.startsWith("[cdi] ")) {
+				messages.add(message);
+			}
+		}
+		return messages;
+	}
+
+	private static void deleteRecursively(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static final class JavaSourceFromString extends SimpleJavaFileObject {
+
+		private final String source;
+
+		JavaSourceFromString(String fileName, String source) throws Exception {
+			super(new URI(fileName), Kind.SOURCE);
+			this.source = source;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return source;
+		}
+	}
+
+}
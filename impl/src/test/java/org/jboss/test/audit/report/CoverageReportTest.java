@@ -16,15 +16,57 @@
  */
 package org.jboss.test.audit.report;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import org.jboss.test.audit.config.PropertyKeys;
 import org.jboss.test.audit.config.RuntimeProperties;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
 public class CoverageReportTest {
 
+	private static final String[] REPORT_PROPERTIES = {
+			PropertyKeys.REPORT_RENDERING_PARALLELISM,
+			PropertyKeys.REPORT_LAYOUT, PropertyKeys.REPORT_COMPRESSION,
+			PropertyKeys.EXPORT_FORMATS, PropertyKeys.REPORT_FRAGMENT_CACHE,
+			PropertyKeys.COVERAGE_SNAPSHOT, PropertyKeys.COVERAGE_BASELINE,
+			PropertyKeys.COVERAGE_HISTORY,
+			PropertyKeys.COVERAGE_HISTORY_LENGTH, PropertyKeys.COVERAGE_GATE,
+			PropertyKeys.COVERAGE_GATE_PER_CHAPTER,
+			PropertyKeys.FAIL_THRESHOLD };
+
+	private File outputDir;
+
+	@Before
+	public void createOutputDir() throws Exception {
+		outputDir = File.createTempFile("coverage", "");
+		outputDir.delete();
+		outputDir.mkdirs();
+	}
+
+	@After
+	public void cleanUp() {
+		for (String property : REPORT_PROPERTIES) {
+			System.clearProperty(property);
+		}
+		deleteRecursively(outputDir);
+	}
+
 	@Test
 	public void testGeneratedSectionIdHeaders() throws Exception {
 
@@ -63,4 +105,522 @@ public class CoverageReportTest {
 				.contains("<h4 class=\"sectionHeader\" id=\"2.2\">Section 2.2 - Bean types</h4>"));
 	}
 
+	@Test
+	public void testStatistics() throws Exception {
+
+		RuntimeProperties properties = new RuntimeProperties();
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("2", "a", "Test1", "test"));
+		references.add(createReference("2", "a", "Test1", "broken", "broken"));
+		references.add(createReference("2", "b", "Test2", "broken", "broken"));
+		references.add(createReference("2.2", "l", "Test2", "test"));
+
+		AuditParser parser = new AuditParser(this.getClass().getResourceAsStream(
+				"/tck-audit-coverage-report-old.xml"), properties).parse();
+		CoverageReport report = new CoverageReport(references, parser, null,
+				properties);
+		CoverageStatistics statistics = report.getStatistics();
+
+		CoverageStatistics.Counters section = statistics.getSectionCounters("2");
+		assertEquals(7, section.getAssertions());
+		assertEquals(6, section.getTestable());
+		assertEquals(3, section.getTestCount());
+		assertEquals(1, section.getImplemented());
+		assertEquals(1, section.getUnimplemented());
+
+		// The chapter includes its own assertions and those of all subsections
+		CoverageStatistics.Counters chapter = statistics.getChapterCounters("2");
+		assertEquals(9, chapter.getAssertions());
+		assertEquals(8, chapter.getTestable());
+		assertEquals(4, chapter.getTestCount());
+		assertEquals(2, chapter.getImplemented());
+		assertEquals(3, chapter.getTested());
+		assertEquals(25.0, chapter.getCoveragePercent(), 0.001);
+
+		// Subtotals are available at every level
+		CoverageStatistics.Counters subsection = statistics.getSubtotalCounters("2.2");
+		assertEquals(2, subsection.getAssertions());
+		assertEquals(1, subsection.getTestCount());
+		assertEquals(0, statistics.getSubtotalCounters("2.1").getAssertions());
+		assertEquals(9, statistics.getSubtotalCounters(
+				parser.getSectionTree().getRoot()).getAssertions());
+
+		assertEquals(-1, statistics.getChapterCounters("1").getCoveragePercent(), 0.001);
+		assertEquals(9, statistics.getTotalCounters().getAssertions());
+	}
+
+	@Test
+	public void testReferencesOfGeneratedSections() throws Exception {
+
+		RuntimeProperties properties = new RuntimeProperties();
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("bean_types", "l", "Test1", "test"));
+		references.add(createReference("bean_types", "l", "Test2", "test"));
+		references.add(createReference("bean_types", "a", "Test3", "test"));
+		references.add(createReference("2.2", "l", "Test4", "test"));
+
+		AuditParser parser = new AuditParser(this.getClass().getResourceAsStream(
+				"/tck-audit-coverage-report.xml"), properties).parse();
+		CoverageStatistics statistics = new CoverageReport(references, parser,
+				null, properties).getStatistics();
+
+		List<SpecReference> coverage = statistics.getCoverage(
+				parser.getAssertion("bean_types", "l")).getReferences();
+		assertEquals(2, coverage.size());
+		assertEquals("Test1", coverage.get(0).getClassName());
+		assertEquals("Test2", coverage.get(1).getClassName());
+		assertTrue(statistics.getCoverage(parser.getAssertion("concepts", "a"))
+				.getReferences().isEmpty());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testReferencesAreImmutable() throws Exception {
+
+		RuntimeProperties properties = new RuntimeProperties();
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("2", "a", "Test1", "test"));
+
+		AuditParser parser = new AuditParser(this.getClass().getResourceAsStream(
+				"/tck-audit-coverage-report-old.xml"), properties).parse();
+		new CoverageReport(references, parser, null, properties).getStatistics()
+				.getCoverage(parser.getAssertion("2", "a")).getReferences().clear();
+	}
+
+	@Test
+	public void testParallelRenderingMatchesSerialRendering() throws Exception {
+		RuntimeProperties properties = new RuntimeProperties();
+		AuditParser auditParser = new AuditParser(new ByteArrayInputStream(
+				AuditParserStreamingTest.generateSyntheticAudit()), properties).parse();
+
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		for (String sectionId : auditParser.getSectionIds()) {
+			for (AuditAssertion assertion : auditParser.getAssertionsForSection(sectionId)) {
+				if (assertion.getId().hashCode() % 3 == 0) {
+					SpecReference reference = createReference(auditParser.getSectionOriginalId(sectionId),
+							assertion.getId(), "Test" + sectionId.length(), "test");
+					reference.setSpecId(auditParser.getSpecId());
+					reference.setSpecVersion(auditParser.getVersion());
+					references.add(reference);
+				}
+			}
+		}
+
+		String serial = generate(new CoverageReport(references, auditParser, null, properties));
+		assertTrue(serial.contains("<div class=\"pass\">"));
+
+		System.setProperty(PropertyKeys.REPORT_RENDERING_PARALLELISM, "4");
+		assertEquals(serial, generate(new CoverageReport(references, auditParser, null, properties)));
+	}
+
+	@Test
+	public void testChaptersLayout() throws Exception {
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("2.2", "l", "Test1", "test"));
+
+		System.setProperty(PropertyKeys.REPORT_LAYOUT, CoverageReport.LAYOUT_CHAPTERS);
+		newReport(references, parseOldAudit()).generateToOutputDir(outputDir);
+
+		String index = read(new File(outputDir, "coverage-cdi.html"));
+		assertTrue(index.contains("<a href=\"coverage-cdi-2.html#2.2\">"));
+		assertTrue(index.contains("<a href=\"coverage-cdi-2.html\">"));
+		assertFalse(index.contains("class=\"sectionHeader\""));
+
+		String chapter = read(new File(outputDir, "coverage-cdi-2.html"));
+		assertTrue(chapter.contains("<h4 class=\"sectionHeader\" id=\"2.2\">"));
+		assertTrue(chapter.contains("<a href=\"coverage-cdi.html\">"));
+		assertFalse(chapter.contains("id=\"chapterSummary\""));
+	}
+
+	@Test
+	public void testDataLayout() throws Exception {
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("2.2", "l", "Test1", "test"));
+
+		System.setProperty(PropertyKeys.REPORT_LAYOUT, CoverageReport.LAYOUT_DATA);
+		newReport(references, parseOldAudit()).generateToOutputDir(outputDir);
+
+		String page = read(new File(outputDir, "coverage-cdi.html"));
+		assertTrue(page.contains("<a href=\"#2.2\">"));
+		assertTrue(page.contains("<div class=\"lazySection\" id=\"2.2\""));
+		assertTrue(page.contains("<script type=\"text/javascript\" src=\"coverage-cdi-data.js\"></script>"));
+		assertFalse(page.contains("class=\"sectionHeader\""));
+		assertTrue(new File(outputDir, "coverage-report.js").isFile());
+
+		String data = read(new File(outputDir, "coverage-cdi-data.js"));
+		assertTrue(data.startsWith("renderCoverage({"));
+		assertTrue(data.contains("{\"id\":\"l\",\"s\":\"pass\","));
+		assertTrue(data.contains("\"classes\":[[\"org.jboss.test\",\"Test1\","));
+	}
+
+	@Test
+	public void testGzipCompression() throws Exception {
+		AuditParser auditParser = parseOldAudit();
+
+		System.setProperty(PropertyKeys.REPORT_COMPRESSION, CoverageReport.COMPRESSION_GZIP);
+		newReport(null, auditParser).generateToOutputDir(outputDir);
+		String html = read(new File(outputDir, "coverage-cdi.html"));
+		assertTrue(html.endsWith("</body></html>"));
+		assertEquals(html, readGzip(new File(outputDir, "coverage-cdi.html.gz")));
+
+		System.setProperty(PropertyKeys.REPORT_COMPRESSION, CoverageReport.COMPRESSION_GZIP_ONLY);
+		newReport(null, auditParser).generateToOutputDir(outputDir);
+		assertFalse(new File(outputDir, "coverage-cdi.html").exists());
+		assertEquals(html, readGzip(new File(outputDir, "coverage-cdi.html.gz")));
+
+		System.clearProperty(PropertyKeys.REPORT_COMPRESSION);
+		newReport(null, auditParser).generateToOutputDir(outputDir);
+		assertEquals(html, read(new File(outputDir, "coverage-cdi.html")));
+		assertFalse(new File(outputDir, "coverage-cdi.html.gz").exists());
+	}
+
+	@Test
+	public void testJsonExport() throws Exception {
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("2.2", "l", "Test1", "test"));
+
+		System.setProperty(PropertyKeys.EXPORT_FORMATS, JsonCoverageRenderer.FORMAT);
+		newReport(references, parseOldAudit()).generateToOutputDir(outputDir);
+
+		String json = read(new File(outputDir, "coverage-cdi.json"));
+		assertTrue(json.startsWith("{\"spec\":{\"id\":\"cdi\","));
+		assertTrue(json.contains("\"chapters\":[{\"id\":\"1\","));
+		assertTrue(json.contains("{\"id\":\"l\",\"testable\":true,\"implied\":false,\"grouped\":false,"
+				+ "\"status\":\"COVERED\",\"references\":[{\"package\":\"org.jboss.test\",\"class\":\"Test1\","
+				+ "\"method\":\"test\","));
+		assertTrue(json.endsWith("]}\n"));
+	}
+
+	@Test
+	public void testTableExport() throws Exception {
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("2.2", "l", "Test1", "test"));
+		references.add(createReference("2.2", "l", "Test2", "test"));
+
+		System.setProperty(PropertyKeys.EXPORT_FORMATS, CsvCoverageRenderer.FORMAT + ", " + TsvCoverageRenderer.FORMAT);
+		newReport(references, parseOldAudit()).generateToOutputDir(outputDir);
+
+		String csv = read(new File(outputDir, "coverage-cdi.csv"));
+		assertTrue(csv.startsWith("section,original_section,assertion,testable,implied,status,test_count,tests\r\n"));
+		assertTrue(csv.contains("\r\n2.2,2.2,l,true,false,COVERED,2,org.jboss.test.Test1.test org.jboss.test.Test2.test\r\n"));
+
+		String tsv = read(new File(outputDir, "coverage-cdi.tsv"));
+		assertEquals(csv.replace(',', '\t'), tsv);
+	}
+
+	@Test
+	public void testFragmentCache() throws Exception {
+		AuditParser auditParser = parseOldAudit();
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("2.2", "l", "Test1", "test"));
+		File coverageFile = new File(outputDir, "coverage-cdi.html");
+		File cacheDir = new File(outputDir, "fragment-cache/cdi");
+
+		newReport(references, auditParser).generateToOutputDir(outputDir);
+		String uncached = read(coverageFile);
+
+		System.setProperty(PropertyKeys.REPORT_FRAGMENT_CACHE, "true");
+		newReport(references, auditParser).generateToOutputDir(outputDir);
+		assertEquals(uncached, read(coverageFile));
+		File[] fragments = cacheDir.listFiles();
+		assertTrue(fragments.length > 0);
+
+		// Unchanged sections are spliced in from the cache
+		for (File fragment : fragments) {
+			Files.write(fragment.toPath(), ("<!-- cached " + fragment.getName() + " -->").getBytes("UTF-8"));
+		}
+		newReport(references, auditParser).generateToOutputDir(outputDir);
+		String cached = read(coverageFile);
+		for (File fragment : fragments) {
+			assertTrue(cached.contains("<!-- cached " + fragment.getName() + " -->"));
+		}
+
+		// Only the changed section is rendered again, and its stale fragment is removed
+		references.add(createReference("2.2", "l", "Test2", "test"));
+		newReport(references, auditParser).generateToOutputDir(outputDir);
+		String changed = read(coverageFile);
+		assertTrue(changed.contains("Test2.test()"));
+		assertEquals(fragments.length, cacheDir.listFiles().length);
+		int stale = 0;
+		for (File fragment : fragments) {
+			if (!changed.contains("<!-- cached " + fragment.getName() + " -->")) {
+				stale++;
+				assertFalse(fragment.exists());
+			}
+		}
+		assertEquals(1, stale);
+	}
+
+	@Test
+	public void testCoverageDiff() throws Exception {
+		AuditParser auditParser = parseOldAudit();
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("2.2", "l", "Test1", "test"));
+		references.add(createReference("2.2", "a", "Test1", "test"));
+		File snapshot = new File(outputDir, "coverage-cdi.snapshot");
+		File diffFile = new File(outputDir, "coverage-cdi-diff.html");
+
+		System.setProperty(PropertyKeys.COVERAGE_SNAPSHOT, "true");
+		newReport(references, auditParser).generateToOutputDir(outputDir);
+		assertTrue(snapshot.isFile());
+		assertFalse(diffFile.exists());
+
+		references.remove(1);
+		references.add(createReference("2.2", "l", "Test2", "test"));
+		references.add(createReference("2", "b", "Test3", "test"));
+		System.setProperty(PropertyKeys.COVERAGE_BASELINE, outputDir.getPath());
+		newReport(references, auditParser).generateToOutputDir(outputDir);
+
+		String diff = read(diffFile);
+		assertTrue(diff.contains("<h3 id=\"becameCovered\">"));
+		assertTrue(diff.contains("<tr><td>2</td><td>b</td><td>uncovered</td><td>covered</td>"
+				+ "<td><div class=\"coverageMethod\">org.jboss.test.Test3.test()</div></td><td></td></tr>"));
+		assertTrue(diff.contains("<tr><td>2.2</td><td>a</td><td>covered</td><td>uncovered</td>"
+				+ "<td></td><td><div class=\"coverageMethod\">org.jboss.test.Test1.test()</div></td></tr>"));
+		assertTrue(diff.contains("<tr><td>2.2</td><td>l</td><td>covered</td><td>covered</td>"
+				+ "<td><div class=\"coverageMethod\">org.jboss.test.Test2.test()</div></td><td></td></tr>"));
+		assertFalse(diff.contains("id=\"removed\""));
+
+		// The snapshot is now the baseline of the next report
+		newReport(references, auditParser).generateToOutputDir(outputDir);
+		assertTrue(read(diffFile).contains("<p>The coverage is unchanged.</p>"));
+	}
+
+	@Test
+	public void testMissingOrUnreadableBaseline() throws Exception {
+		AuditParser auditParser = parseOldAudit();
+		File snapshot = new File(outputDir, "coverage-cdi.snapshot");
+		File diffFile = new File(outputDir, "coverage-cdi-diff.html");
+		File baselineDir = new File(outputDir, "baseline");
+
+		// The first build has no baseline yet
+		System.setProperty(PropertyKeys.COVERAGE_SNAPSHOT, "true");
+		System.setProperty(PropertyKeys.COVERAGE_BASELINE, baselineDir.getPath());
+		newReport(null, auditParser).generateToOutputDir(outputDir);
+		assertTrue(new File(outputDir, "coverage-cdi.html").isFile());
+		assertTrue(snapshot.isFile());
+		assertFalse(diffFile.exists());
+
+		baselineDir.mkdirs();
+		Files.write(new File(baselineDir, "coverage-cdi.snapshot").toPath(), "not a snapshot".getBytes("UTF-8"));
+		newReport(null, auditParser).generateToOutputDir(outputDir);
+		assertTrue(snapshot.isFile());
+		assertFalse(diffFile.exists());
+	}
+
+	@Test
+	public void testBaselineOfEachSpec() throws Exception {
+		AuditParser cdi = parseOldAudit();
+		AuditParser alpha = new AuditParser(new ByteArrayInputStream(CoverageProcessorTest.createAudit("alpha")
+				.getBytes("UTF-8")), new RuntimeProperties()).parse();
+		File baselineDir = new File(outputDir, "baseline");
+		baselineDir.mkdirs();
+
+		// The baseline of cdi is the snapshot of alpha, and alpha has none
+		System.setProperty(PropertyKeys.COVERAGE_SNAPSHOT, "true");
+		newReport(null, alpha).generateToOutputDir(baselineDir);
+		assertTrue(new File(baselineDir, "coverage-alpha.snapshot").renameTo(new File(baselineDir,
+				"coverage-cdi.snapshot")));
+
+		System.setProperty(PropertyKeys.COVERAGE_BASELINE, baselineDir.getPath());
+		newReport(null, cdi).generateToOutputDir(outputDir);
+		newReport(null, alpha).generateToOutputDir(outputDir);
+
+		assertFalse(new File(outputDir, "coverage-cdi-diff.html").exists());
+		assertFalse(new File(outputDir, "coverage-alpha-diff.html").exists());
+		assertTrue(new File(outputDir, "coverage-cdi.snapshot").isFile());
+		assertTrue(new File(outputDir, "coverage-alpha.snapshot").isFile());
+
+		// Each spec is diffed against its own snapshot
+		System.setProperty(PropertyKeys.COVERAGE_BASELINE, outputDir.getPath());
+		newReport(null, cdi).generateToOutputDir(outputDir);
+		newReport(null, alpha).generateToOutputDir(outputDir);
+		assertTrue(read(new File(outputDir, "coverage-cdi-diff.html")).contains("<p>The coverage is unchanged.</p>"));
+		assertTrue(read(new File(outputDir, "coverage-alpha-diff.html")).contains("<p>The coverage is unchanged.</p>"));
+	}
+
+	@Test
+	public void testCoverageTrend() throws Exception {
+		AuditParser auditParser = parseOldAudit();
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("2.2", "l", "Test1", "test"));
+		File coverageFile = new File(outputDir, "coverage-cdi.html");
+
+		System.setProperty(PropertyKeys.COVERAGE_HISTORY, "true");
+		newReport(references, auditParser).generateToOutputDir(outputDir);
+		String first = read(coverageFile);
+		assertTrue(first.contains("<th>Trend</th>"));
+		assertFalse(first.contains("<svg"));
+
+		references.add(createReference("2.2", "a", "Test1", "test"));
+		newReport(references, auditParser).generateToOutputDir(outputDir);
+		String second = read(coverageFile);
+		assertTrue(second.contains("<polyline fill=\"none\" stroke=\"#317ba6\" stroke-width=\"1\" points=\"0.0,"));
+		CoverageHistory history = new CoverageHistory(new File(outputDir, "coverage-cdi.history"), "cdi");
+		assertEquals(2, history.readLast(5).size());
+
+		// A report which fails is not part of the history
+		System.setProperty(PropertyKeys.EXPORT_FORMATS, "unknown");
+		try {
+			newReport(references, auditParser).generateToOutputDir(outputDir);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		assertEquals(2, history.readLast(5).size());
+
+		// The trend of this report includes it, before it is appended
+		System.clearProperty(PropertyKeys.EXPORT_FORMATS);
+		System.setProperty(PropertyKeys.COVERAGE_HISTORY_LENGTH, "1");
+		newReport(references, auditParser).generateToOutputDir(outputDir);
+		assertFalse(read(coverageFile).contains("<svg"));
+		assertEquals(3, history.readLast(5).size());
+	}
+
+	@Test
+	public void testCoverageGate() throws Exception {
+		AuditParser auditParser = parseOldAudit();
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("2.2", "a", "Test1", "test"));
+		references.add(createReference("2.2", "l", "Test1", "test"));
+
+		CoverageGate gate = newReport(references, auditParser).checkGate(outputDir);
+		assertEquals(CoverageGate.STATUS_FAIL, gate.getStatus());
+		assertEquals(1, gate.getFailures().size());
+		assertTrue(gate.getFailures().get(0).startsWith("Total coverage "));
+		assertFalse(new File(outputDir, "coverage-cdi.html").exists());
+
+		System.setProperty(PropertyKeys.COVERAGE_GATE_PER_CHAPTER, "true");
+		System.setProperty(PropertyKeys.FAIL_THRESHOLD, "0");
+		gate = newReport(references, auditParser).checkGate(outputDir);
+		assertEquals(CoverageGate.STATUS_WARN, gate.getStatus());
+		assertTrue(gate.getFailures().isEmpty());
+		assertTrue(gate.getWarnings().contains("Chapter 2 Concepts coverage 25.00% is below the pass threshold of 75%"));
+
+		String result = read(new File(outputDir, "coverage-cdi-gate.properties"));
+		assertTrue(result.contains("status=warn\n"));
+		assertTrue(result.contains("coverage=25.00\n"));
+		assertTrue(result.contains("coverage.1=\n"));
+		assertTrue(result.contains("coverage.2=25.00\n"));
+	}
+
+	@Test
+	public void testCustomRenderer() throws Exception {
+		CoverageReport report = newReport(new ArrayList<SpecReference>(), parseOldAudit());
+
+		System.setProperty(PropertyKeys.EXPORT_FORMATS, JsonCoverageRenderer.FORMAT + "," + CountingCoverageRenderer.FORMAT);
+		report.generateToOutputDir(outputDir);
+
+		assertEquals("cdi 2 4 9", read(new File(outputDir, "coverage-cdi-counts.txt")));
+		assertTrue(read(new File(outputDir, "coverage-cdi.json")).startsWith("{\"spec\":{\"id\":\"cdi\","));
+		assertSame(report.getModel(), report.getModel());
+	}
+
+	@Test
+	public void testUnknownRenderer() throws Exception {
+		System.setProperty(PropertyKeys.EXPORT_FORMATS, "unknown");
+		try {
+			newReport(new ArrayList<SpecReference>(), parseOldAudit()).generateToOutputDir(outputDir);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		// The format is checked before anything is written
+		assertFalse(new File(outputDir, "coverage-cdi.html").exists());
+	}
+
+	@Test
+	public void testModelReferencesAreCopies() throws Exception {
+		AuditParser auditParser = parseOldAudit();
+		List<SpecReference> references = new ArrayList<SpecReference>();
+		references.add(createReference("2.2", "l", "Test1", "test", "broken"));
+		CoverageReport report = newReport(references, auditParser);
+
+		CoverageModel.Reference reference = findAssertion(report.getModel(), "2.2", "l").getReferences().get(0);
+		assertEquals("org.jboss.test.Test1.test", reference.getFqn());
+		try {
+			reference.getGroups().clear();
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+
+		// Changing the spec reference does not change the model
+		references.get(0).setMethodName("changed");
+		assertEquals("test", reference.getMethodName());
+	}
+
+	private static CoverageModel.Assertion findAssertion(CoverageModel model, String sectionId, String assertionId) {
+		for (CoverageModel.Section section : model.getSections()) {
+			if (section.getId().equals(sectionId)) {
+				for (CoverageModel.Assertion assertion : section.getAssertions()) {
+					if (assertion.getId().equals(assertionId)) {
+						return assertion;
+					}
+				}
+			}
+		}
+		throw new AssertionError("No assertion " + sectionId + " " + assertionId);
+	}
+
+	private AuditParser parseOldAudit() throws Exception {
+		return new AuditParser(this.getClass().getResourceAsStream(
+				"/tck-audit-coverage-report-old.xml"), new RuntimeProperties()).parse();
+	}
+
+	private static CoverageReport newReport(List<SpecReference> references, AuditParser auditParser) {
+		return new CoverageReport(references, auditParser, null, new RuntimeProperties());
+	}
+
+	private static String readGzip(File file) throws Exception {
+		InputStream in = new GZIPInputStream(new FileInputStream(file));
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read = in.read(buffer);
+			while (read != -1) {
+				out.write(buffer, 0, read);
+				read = in.read(buffer);
+			}
+			return out.toString("UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
+	private static String read(File file) throws Exception {
+		return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+	}
+
+	private static void deleteRecursively(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static String generate(CoverageReport report) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		report.generate(out);
+		return out.toString("utf-8");
+	}
+
+	static SpecReference createReference(String section, String assertion,
+			String className, String methodName, String... groups) {
+		SpecReference reference = new SpecReference();
+		reference.setSpecId("cdi");
+		reference.setSpecVersion("20091101");
+		reference.setSection(section);
+		reference.setAssertion(assertion);
+		reference.setPackageName("org.jboss.test");
+		reference.setClassName(className);
+		reference.setMethodName(methodName);
+		for (String group : groups) {
+			reference.getGroups().add(group);
+		}
+		return reference;
+	}
+
 }
@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ImageCopier}.
+ */
+public class ImageCopierTest {
+
+	private static final long MODIFIED = 1500000000000L;
+
+	private File sourceDir;
+	private File targetDir;
+
+	@Before
+	public void createDirs() throws IOException {
+		sourceDir = createDir("images-source");
+		targetDir = createDir("images-target");
+	}
+
+	@After
+	public void deleteDirs() {
+		deleteDir(sourceDir);
+		deleteDir(targetDir);
+	}
+
+	@Test
+	public void testCopy() throws Exception {
+		write(new File(sourceDir, "2.1.a.png"), "image a", MODIFIED);
+		write(new File(sourceDir, "2.1.b.png"), "image b", MODIFIED);
+
+		ImageCopier copier = new ImageCopier(sourceDir, targetDir, 2);
+		assertTrue(copier.exists("2.1.a.png"));
+		assertFalse(copier.exists("2.1.c.png"));
+		copier.copy("2.1.a.png");
+		copier.copy("2.1.a.png");
+		copier.finish();
+
+		File target = new File(targetDir, "2.1.a.png");
+		assertArrayEquals("image a".getBytes(), Files.readAllBytes(target.toPath()));
+		assertEquals(MODIFIED, target.lastModified());
+		assertFalse(new File(targetDir, "2.1.b.png").exists());
+		assertEquals(1, targetDir.list().length);
+	}
+
+	@Test
+	public void testUnchangedImageIsNotCopied() throws Exception {
+		File source = new File(sourceDir, "2.1.a.png");
+		File target = new File(targetDir, "2.1.a.png");
+		write(source, "image a", MODIFIED);
+
+		// Same size and modification time, the content is not compared
+		write(target, "image x", MODIFIED);
+		ImageCopier.copyIfChanged(source, target);
+		assertArrayEquals("image x".getBytes(), Files.readAllBytes(target.toPath()));
+
+		// Same content, only the modification time is updated
+		write(target, "image a", MODIFIED + 60000);
+		ImageCopier.copyIfChanged(source, target);
+		assertEquals(MODIFIED, target.lastModified());
+
+		// Changed content
+		write(target, "image y", MODIFIED + 60000);
+		ImageCopier.copyIfChanged(source, target);
+		assertArrayEquals("image a".getBytes(), Files.readAllBytes(target.toPath()));
+		assertEquals(MODIFIED, target.lastModified());
+	}
+
+	@Test
+	public void testWithoutTargetDir() throws Exception {
+		write(new File(sourceDir, "2.1.a.png"), "image a", MODIFIED);
+
+		ImageCopier copier = new ImageCopier(sourceDir, null, 2);
+		assertTrue(copier.exists("2.1.a.png"));
+		copier.copy("2.1.a.png");
+		copier.finish();
+
+		assertFalse(new ImageCopier(null, null, 2).exists("2.1.a.png"));
+	}
+
+	private static void write(File file, String content, long modified) throws IOException {
+		Files.write(file.toPath(), content.getBytes());
+		file.setLastModified(modified);
+	}
+
+	private static File createDir(String name) throws IOException {
+		File dir = File.createTempFile(name, "");
+		dir.delete();
+		dir.mkdirs();
+		return dir;
+	}
+
+	private static void deleteDir(File dir) {
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+
+}
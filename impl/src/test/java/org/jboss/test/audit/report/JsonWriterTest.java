@@ -0,0 +1,52 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link JsonWriter}.
+ */
+public class JsonWriterTest {
+
+	@Test
+	public void testStructure() throws Exception {
+		StringWriter out = new StringWriter();
+		new JsonWriter(out).beginObject().name("a").value(1).name("b")
+				.beginArray().value("x").nullValue().value(true).beginObject()
+				.endObject().beginArray().endArray().endArray().name("c")
+				.value(2.5).name("d").value((String) null).endObject();
+		assertEquals("{\"a\":1,\"b\":[\"x\",null,true,{},[]],\"c\":2.5,\"d\":null}", out.toString());
+	}
+
+	@Test
+	public void testEscaping() throws Exception {
+		StringWriter out = new StringWriter();
+		new JsonWriter(out).value("\"quoted\" back\\slash\n\t\u0001\u2028 </script> a/b <b>");
+		assertEquals("\"\\\"quoted\\\" back\\\\slash\\n\\t\\u0001\\u2028 <\\/script> a/b <b>\"", out.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidNumber() throws Exception {
+		new JsonWriter(new StringWriter()).value(Double.NaN);
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MarkupRenderer}.
+ */
+public class MarkupRendererTest {
+
+	private static final Pattern PATTERN_BOLD = Pattern.compile("([_][^_]*[_])");
+	private static final Pattern PATTERN_STRIKETHROUGH = Pattern.compile("([~][^~]*[~])");
+	private static final Pattern PATTERN_LITERAL = Pattern.compile("([|][^|]*[|])");
+
+	@Test
+	public void testMarkup() throws Exception {
+		assertEquals(
+				"The <span class=\"literal\">@Inject</span> <span class=\"highlight\">must</span> <del>not</del> be used",
+				render("The |@Inject| _must_ ~not~ be used"));
+		assertEquals("List&lt;String&gt; a &gt; b", render("List<String> a > b"));
+		assertEquals("<span class=\"highlight\">a</span> b_c", render("_a_ b_c"));
+		// Markers of different kinds are paired independently
+		assertEquals("<span class=\"literal\">a<span class=\"highlight\">b</span>c</span>", render("|a_b|c_"));
+		assertEquals("<span class=\"highlight\"></span>", render("__"));
+	}
+
+	@Test
+	public void testEscape() {
+		assertEquals("|a| _b_ ~c~ &lt;d&gt;", MarkupRenderer.escape("|a| _b_ ~c~ <d>"));
+	}
+
+	@Test
+	public void testSameAsRegularExpressions() throws Exception {
+		Random random = new Random(7);
+		char[] alphabet = { 'a', 'b', ' ', '_', '~', '|', '<', '>', '&', '.' };
+		for (int i = 0; i < 5000; i++) {
+			char[] text = new char[random.nextInt(40)];
+			for (int j = 0; j < text.length; j++) {
+				text[j] = alphabet[random.nextInt(alphabet.length)];
+			}
+			String value = new String(text);
+			assertEquals(value, reference(value), render(value));
+		}
+	}
+
+	@Test
+	public void testLongText() throws Exception {
+		StringBuilder text = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			text.append("the _container_ must |call| the ~old~ method; ");
+			expected.append("the <span class=\"highlight\">container</span> must <span class=\"literal\">call</span> the <del>old</del> method; ");
+		}
+		assertEquals(expected.toString(), render(text.toString()));
+	}
+
+	private static String render(String text) throws Exception {
+		StringBuilder sb = new StringBuilder();
+		MarkupRenderer.render(text, sb);
+		return sb.toString();
+	}
+
+	/**
+	 * The rendering of the report before the single scan renderer
+	 */
+	private static String reference(String text) {
+		String result = text.replaceAll("<", "&lt;").replaceAll(">", "&gt;");
+		result = replace(PATTERN_LITERAL, result, "<span class=\"literal\">", "</span>");
+		result = replace(PATTERN_BOLD, result, "<span class=\"highlight\">", "</span>");
+		return replace(PATTERN_STRIKETHROUGH, result, "<del>", "</del>");
+	}
+
+	private static String replace(Pattern pattern, String text, String open, String close) {
+		Matcher m = pattern.matcher(text);
+		String result = text;
+		while (m.find()) {
+			result = m.replaceFirst(open + m.group().substring(1, m.group().length() - 1) + close);
+			m.reset(result);
+		}
+		return result;
+	}
+
+}
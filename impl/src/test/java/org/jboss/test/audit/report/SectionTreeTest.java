@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2026, Red Hat, Inc. and/or its affiliates, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.test.audit.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SectionTree}.
+ */
+public class SectionTreeTest
+{
+
+    @Test
+    public void orderMatchesSectionIdComparator()
+    {
+        List<String> sectionIds = new ArrayList<String>(Arrays.asList("10", "1.10", "2", "1", "1.2", "1.1.1", "2.1.1",
+                "1.1", "3.1", "11", "1.9"));
+        Collections.shuffle(sectionIds);
+
+        SectionTree tree = new SectionTree(sectionIds);
+
+        Collections.sort(sectionIds, new SectionIdComparator());
+        assertEquals(sectionIds, tree.getSectionIds());
+    }
+
+    @Test
+    public void hierarchy()
+    {
+        SectionTree tree = new SectionTree(Arrays.asList("1", "1.1", "1.1.1", "3.1"));
+
+        assertEquals(1, tree.getDepth("1"));
+        assertEquals(2, tree.getDepth("1.1"));
+        assertEquals(3, tree.getDepth("1.1.1"));
+        assertSame(tree.getNode("1.1"), tree.getNode("1.1.1").getParent());
+        assertSame(tree.getNode("1"), tree.getNode("1.1").getParent());
+        assertSame(tree.getRoot(), tree.getNode("1").getParent());
+
+        // Chapter 3 is not defined, but 3.1 still has a parent node
+        SectionTree.Node chapter = tree.getNode("3.1").getParent();
+        assertNull(chapter.getSectionId());
+        assertEquals(1, chapter.getDepth());
+        assertSame(tree.getRoot(), chapter.getParent());
+        assertEquals(2, tree.getRoot().getChildren().size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sectionIdsAreImmutable()
+    {
+        new SectionTree(Arrays.asList("1", "2")).getSectionIds().add("3");
+    }
+}